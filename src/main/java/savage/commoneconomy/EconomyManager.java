@@ -7,6 +7,8 @@ import savage.commoneconomy.config.EconomyConfig;
 import savage.commoneconomy.config.WorthConfig;
 import savage.commoneconomy.storage.EconomyStorage;
 import savage.commoneconomy.storage.JsonStorage;
+import savage.commoneconomy.storage.WriteBehindBuffer;
+import savage.commoneconomy.util.Money;
 
 import java.io.File;
 import java.io.FileReader;
@@ -17,17 +19,33 @@ import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class EconomyManager {
     private static EconomyManager instance;
     private EconomyStorage storage;
+    private volatile WriteBehindBuffer writeBehind;
+    private volatile savage.commoneconomy.storage.RedisAccountCache sharedCache; // Between accountCache and storage when enabled
+    // Serializes cache read-modify-write while write-behind is enabled
+    private final Object writeBehindLock = new Object();
     private final Gson gson;
     private EconomyConfig config;
+    // config.defaultBalance in minor units
+    private long defaultBalanceMinor;
+    // Blocking storage calls made through the *Async methods run here, off the server thread
+    private volatile ExecutorService storageExecutor;
 
     public EconomyConfig getConfig() {
         return config;
     }
 
+    public long getDefaultBalanceMinor() {
+        return defaultBalanceMinor;
+    }
+
     public static EconomyStorage getStorage() {
         return getInstance().storage;
     }
@@ -40,29 +58,42 @@ public class EconomyManager {
     }
 
     // Caching
-    private final com.github.benmanes.caffeine.cache.Cache<UUID, AccountData> accountCache;
-    private final com.github.benmanes.caffeine.cache.Cache<String, UUID> uuidCache;
-    private final com.github.benmanes.caffeine.cache.Cache<String, java.util.List<String>> offlineNamesCache;
+    // Loading caches hold Optional.empty() for lookups that found nothing, so repeated misses stay off storage
+    private final com.github.benmanes.caffeine.cache.LoadingCache<UUID, java.util.Optional<AccountData>> accountCache;
+    private final com.github.benmanes.caffeine.cache.LoadingCache<String, java.util.Optional<UUID>> uuidCache;
+    private final savage.commoneconomy.util.NameIndex nameIndex = new savage.commoneconomy.util.NameIndex();
+    private final savage.commoneconomy.util.Leaderboard leaderboard = new savage.commoneconomy.util.Leaderboard();
+    private final java.util.concurrent.atomic.AtomicBoolean nameResyncRunning = new java.util.concurrent.atomic.AtomicBoolean();
+    private volatile long lastNameResync;
+    private java.util.concurrent.ScheduledExecutorService indexResync; // Shared storage only, see resyncIndexes
+    // Accounts of online players; they weigh nothing and never expire, so they can't be evicted
+    private final java.util.Set<UUID> pinnedAccounts = java.util.concurrent.ConcurrentHashMap.newKeySet();
 
     private EconomyManager() {
         this.gson = new GsonBuilder().setPrettyPrinting().create();
         loadConfig();
         
         // Initialize Caches
+        EconomyConfig.CacheConfig cacheConfig = config.cache;
+        long negativeTtl = TimeUnit.SECONDS.toNanos(cacheConfig.negativeTtlSeconds);
         this.accountCache = com.github.benmanes.caffeine.cache.Caffeine.newBuilder()
-                .maximumSize(10000)
-                .expireAfterWrite(10, java.util.concurrent.TimeUnit.MINUTES)
-                .build();
+                .maximumWeight(cacheConfig.accountMaxSize)
+                .weigher((UUID uuid, java.util.Optional<AccountData> data) -> pinnedAccounts.contains(uuid) ? 0 : 1)
+                .expireAfter(new PresenceExpiry<UUID, AccountData>(TimeUnit.SECONDS.toNanos(cacheConfig.accountTtlSeconds), negativeTtl, pinnedAccounts::contains))
+                .recordStats()
+                .build(uuid -> {
+                    AccountData data = loadAccount(uuid);
+                    if (data != null) {
+                        leaderboard.update(uuid, data.name, data.balance, leaderboardVersion(data));
+                    }
+                    return java.util.Optional.ofNullable(data);
+                });
                 
         this.uuidCache = com.github.benmanes.caffeine.cache.Caffeine.newBuilder()
-                .maximumSize(10000)
-                .expireAfterWrite(1, java.util.concurrent.TimeUnit.HOURS)
-                .build();
-                
-        this.offlineNamesCache = com.github.benmanes.caffeine.cache.Caffeine.newBuilder()
-                .maximumSize(1) // Singleton cache
-                .expireAfterWrite(1, java.util.concurrent.TimeUnit.MINUTES)
-                .build();
+                .maximumSize(cacheConfig.uuidMaxSize)
+                .expireAfter(new PresenceExpiry<String, UUID>(TimeUnit.SECONDS.toNanos(cacheConfig.uuidTtlSeconds), negativeTtl, name -> false))
+                .recordStats()
+                .build(name -> java.util.Optional.ofNullable(storage.getUUID(name)));
         
         String type = config.storage.type.toUpperCase();
         switch (type) {
@@ -76,6 +107,10 @@ public class EconomyManager {
             case "POSTGRESQL":
                 storage = new savage.commoneconomy.storage.PostgresStorage(this, config.storage.host, config.storage.port, config.storage.database, config.storage.user, config.storage.password, config.storage.tablePrefix);
                 break;
+            case "REDIS":
+                // Connects with the redis section's host, port and password
+                storage = new savage.commoneconomy.storage.RedisStorage(this, config.redis, config.storage.tablePrefix);
+                break;
             default:
                 storage = new JsonStorage(this);
                 break;
@@ -104,36 +139,122 @@ public class EconomyManager {
                 this.config = new EconomyConfig();
             }
         }
+        this.defaultBalanceMinor = Money.fromBigDecimal(config.defaultBalance);
     }
 
     public void load() {
+        // Platform threads, as many as the connection pool: loads run JDBC inside Caffeine's compute and some writes
+        // inside synchronized blocks, which would pin virtual threads to their carriers
+        storageExecutor = Executors.newFixedThreadPool(Math.max(1, config.storage.poolSize),
+                Thread.ofPlatform().name("Savs-Economy-Storage-", 0).daemon(true).factory());
         storage.load();
+        leaderboard.clear();
+        resyncIndexes();
+        if (config.storage.writeBehind.enabled) {
+            if (config.redis.enabled) {
+                SavsCommonEconomy.LOGGER.warn("Write-behind is enabled together with Redis sync. Balances are only flushed every " + config.storage.writeBehind.maxStalenessMs + "ms, so other servers must not write to the same accounts.");
+            }
+            writeBehind = new WriteBehindBuffer(storage, config.storage.writeBehind);
+        }
+        if (config.cache.redis.enabled) {
+            if (writeBehind != null) {
+                SavsCommonEconomy.LOGGER.warn("The Redis account cache can't be used with write-behind, whose buffered balances are ahead of storage. It stays off.");
+            } else if (storage instanceof savage.commoneconomy.storage.RedisStorage) {
+                SavsCommonEconomy.LOGGER.info("Storage is already Redis, the Redis account cache stays off");
+            } else {
+                sharedCache = new savage.commoneconomy.storage.RedisAccountCache(config.redis, config.cache.redis);
+            }
+        }
+        // Other servers write to shared storage without this one hearing of every change, so re-read it now and then.
+        // Write-behind means a single writer, whose own changes already keep the indexes current.
+        if (sharesStorage() && writeBehind == null && config.cache.leaderboardResyncSeconds > 0) {
+            long period = config.cache.leaderboardResyncSeconds;
+            indexResync = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "Savs-Economy-IndexResync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            indexResync.scheduleWithFixedDelay(() -> {
+                try {
+                    resyncIndexes();
+                } catch (Exception e) {
+                    SavsCommonEconomy.LOGGER.error("Failed to re-read the leaderboard from storage", e);
+                }
+            }, period, period, TimeUnit.SECONDS);
+        }
+    }
+
+    private boolean sharesStorage() {
+        return storage instanceof savage.commoneconomy.storage.MysqlStorage
+                || storage instanceof savage.commoneconomy.storage.PostgresStorage
+                || storage instanceof savage.commoneconomy.storage.RedisStorage;
+    }
+
+    // One pass over storage builds both in-memory indexes. Changes made meanwhile win through the version check,
+    // and accounts storage no longer has are dropped unless they were updated during the pass.
+    private void resyncIndexes() {
+        java.util.List<String> names = new java.util.ArrayList<>();
+        java.util.Set<UUID> seen = new java.util.HashSet<>();
+        long mark = leaderboard.mark();
+        storage.forEachAccount((uuid, data) -> {
+            names.add(data.name);
+            seen.add(uuid);
+            leaderboard.update(uuid, data.name, data.balance, data.version);
+        });
+        if (seen.isEmpty() && leaderboard.size() > 0) {
+            return; // More likely a failed read than every account gone
+        }
+        leaderboard.retain(seen, mark);
+        nameIndex.replaceAll(names);
+        lastNameResync = System.currentTimeMillis();
     }
 
     public void save() {
+        if (indexResync != null) {
+            // A pass still reading storage has to end before the connection closes
+            indexResync.shutdownNow();
+            try {
+                indexResync.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            indexResync = null;
+        }
+        ExecutorService executor = storageExecutor;
+        if (executor != null) {
+            // Let in-flight async operations finish before storage goes away
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    SavsCommonEconomy.LOGGER.warn("Timed out waiting for pending economy operations");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Queued log entries, including those of the operations just finished, go out before storage closes
+        savage.commoneconomy.util.TransactionLogger.flush();
+        if (writeBehind != null) {
+            // Durable flush of everything still queued before storage shuts down
+            writeBehind.close();
+            writeBehind = null;
+        }
+        if (sharedCache != null) {
+            sharedCache.close();
+            sharedCache = null;
+        }
         storage.save();
     }
 
     public BigDecimal getBalance(UUID uuid) {
-        AccountData data = accountCache.getIfPresent(uuid);
-        if (data != null) {
-            return data.balance;
-        }
-        
-        // Cache miss, load from storage
-        BigDecimal balance = storage.getBalance(uuid);
-        // We need version to cache properly, but getBalance only returns BigDecimal.
-        // Ideally we should use getAccountData to populate cache.
-        // For now, let's fetch full data if possible, or just cache the balance with a dummy version/name if we can't get full data easily without changing storage interface again.
-        // Actually, we added getAccount to storage interface earlier!
-        data = storage.getAccount(uuid);
-        if (data != null) {
-            accountCache.put(uuid, data);
-            return data.balance;
-        } else {
-            // Account doesn't exist, return default but don't cache null unless we use Optional
-            return config.defaultBalance;
-        }
+        return Money.toBigDecimal(getBalanceMinor(uuid));
+    }
+
+    // Balance in minor units; a cache hit allocates nothing
+    public long getBalanceMinor(UUID uuid) {
+        // One getAccount per miss; concurrent misses for the same account share the load
+        java.util.Optional<AccountData> data = accountCache.get(uuid);
+        return data.isPresent() ? data.get().balance : defaultBalanceMinor;
     }
 
     private net.minecraft.server.MinecraftServer server;
@@ -146,15 +267,122 @@ public class EconomyManager {
         return server;
     }
 
+    /**
+     * Executor that runs tasks on the server thread. Chain it onto an async result with thenAcceptAsync(..., mainThread())
+     * before touching players, worlds or command sources.
+     */
+    public java.util.concurrent.Executor mainThread() {
+        return command -> {
+            net.minecraft.server.MinecraftServer current = server;
+            if (current == null || current.isOnThread()) {
+                command.run();
+            } else {
+                current.execute(command);
+            }
+        };
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(java.util.function.Supplier<T> task) {
+        ExecutorService executor = storageExecutor;
+        if (executor == null || executor.isShutdown()) {
+            // Not loaded yet or already stopping, run inline rather than drop the operation
+            return CompletableFuture.completedFuture(task.get());
+        }
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    // Async variants of the operations below; they share the same caching, write-behind and Redis handling
+
+    public CompletableFuture<BigDecimal> getBalanceAsync(UUID uuid) {
+        java.util.Optional<AccountData> data = accountCache.getIfPresent(uuid);
+        if (data != null) {
+            return CompletableFuture.completedFuture(Money.toBigDecimal(data.isPresent() ? data.get().balance : defaultBalanceMinor));
+        }
+        return supplyAsync(() -> getBalance(uuid));
+    }
+
+    public CompletableFuture<Void> setBalanceAsync(UUID uuid, BigDecimal amount, boolean publishToRedis) {
+        return supplyAsync(() -> {
+            setBalance(uuid, amount, publishToRedis);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Boolean> addBalanceAsync(UUID uuid, BigDecimal amount, boolean publishToRedis) {
+        return supplyAsync(() -> addBalance(uuid, amount, publishToRedis));
+    }
+
+    public CompletableFuture<Boolean> removeBalanceAsync(UUID uuid, BigDecimal amount, boolean publishToRedis) {
+        return supplyAsync(() -> removeBalance(uuid, amount, publishToRedis));
+    }
+
+    public CompletableFuture<Boolean> transferAsync(UUID from, UUID to, BigDecimal amount, boolean publishToRedis) {
+        return supplyAsync(() -> transfer(from, to, amount, publishToRedis));
+    }
+
+    public CompletableFuture<TransferResult> transferForResultAsync(UUID from, UUID to, BigDecimal amount) {
+        return supplyAsync(() -> transferForResult(from, to, Money.fromBigDecimal(amount)));
+    }
+
+    // Creates the account unless it already exists
+    public CompletableFuture<Void> ensureAccountAsync(UUID uuid, String name) {
+        return supplyAsync(() -> {
+            if (!hasAccount(uuid)) {
+                createAccount(uuid, name);
+            }
+            return null;
+        });
+    }
+
+    public CompletableFuture<UUID> getUUIDAsync(String name) {
+        java.util.Optional<UUID> uuid = uuidCache.getIfPresent(name.toLowerCase());
+        if (uuid != null) {
+            return CompletableFuture.completedFuture(uuid.orElse(null));
+        }
+        return supplyAsync(() -> getUUID(name));
+    }
+
+    public CompletableFuture<java.util.List<AccountData>> getTopAccountsAsync(int limit) {
+        // In-memory read, no need to leave the calling thread
+        return CompletableFuture.completedFuture(getTopAccounts(limit));
+    }
+
     public void setBalance(UUID uuid, BigDecimal amount) {
         setBalance(uuid, amount, true);
     }
 
     public void setBalance(UUID uuid, BigDecimal amount, boolean publishToRedis) {
-        storage.setBalance(uuid, amount);
-        accountCache.invalidate(uuid); 
+        setBalanceMinor(uuid, Money.fromBigDecimal(amount), publishToRedis);
+    }
+
+    // The *Minor variants take amounts in minor units and are what the BigDecimal methods delegate to
+    public void setBalanceMinor(UUID uuid, long amount, boolean publishToRedis) {
+        WriteBehindBuffer buffer = writeBehind;
+        AccountData stored;
+        if (buffer != null) {
+            synchronized (writeBehindLock) {
+                // Queued deltas predate this absolute value, so they have to land first
+                buffer.flush();
+                storage.setBalance(uuid, amount);
+                stored = storage.getAccount(uuid);
+                invalidateAccount(uuid);
+            }
+        } else {
+            storage.setBalance(uuid, amount);
+            // Read back for the version storage committed, so a delayed older update can't undo this one
+            stored = storage.getAccount(uuid);
+            invalidateAccount(uuid);
+            savage.commoneconomy.storage.RedisAccountCache shared = sharedCache;
+            if (shared != null && stored != null) {
+                shared.store(uuid, stored);
+            }
+        }
+        if (stored != null) {
+            leaderboard.update(uuid, stored.name, stored.balance, leaderboardVersion(stored));
+        }
         if (publishToRedis && config.redis.enabled) {
-            savage.commoneconomy.util.RedisManager.getInstance().publishBalanceUpdate(uuid, amount);
+            savage.commoneconomy.util.RedisManager.getInstance().publishBalanceUpdate(uuid,
+                    stored != null ? stored.balance : amount, stored != null ? leaderboardVersion(stored) : 0);
         }
     }
 
@@ -163,40 +391,11 @@ public class EconomyManager {
     }
 
     public boolean addBalance(UUID uuid, BigDecimal amount, boolean publishToRedis) {
-        int retries = 10;
-        while (retries > 0) {
-            // Reload account data to get latest version
-            AccountData data = getAccountData(uuid); 
-            BigDecimal current = data != null ? data.balance : config.defaultBalance;
-            long version = data != null ? data.version : 0;
-            
-            if (storage.setBalance(uuid, current.add(amount), version)) {
-                // Update cache on success
-                if (data != null) {
-                    data.balance = current.add(amount);
-                    data.version++;
-                    accountCache.put(uuid, data);
-                } else {
-                    accountCache.invalidate(uuid);
-                }
-                
-                if (publishToRedis && config.redis.enabled) {
-                    savage.commoneconomy.util.RedisManager.getInstance().publishBalanceUpdate(uuid, current.add(amount));
-                }
-                
-                return true;
-            }
-            // On failure, invalidate cache to ensure we get fresh data from DB next retry
-            accountCache.invalidate(uuid);
-            
-            retries--;
-            try {
-                Thread.sleep(10 + (long)(Math.random() * 10)); // Small random backoff
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
-        return false; // Failed after retries
+        return applyDelta(uuid, Money.fromBigDecimal(amount), publishToRedis);
+    }
+
+    public boolean addBalanceMinor(UUID uuid, long amount, boolean publishToRedis) {
+        return applyDelta(uuid, amount, publishToRedis);
     }
 
     public boolean removeBalance(UUID uuid, BigDecimal amount) {
@@ -204,109 +403,412 @@ public class EconomyManager {
     }
 
     public boolean removeBalance(UUID uuid, BigDecimal amount, boolean publishToRedis) {
-        int retries = 10;
-        while (retries > 0) {
-            // Reload account data to get latest version
-            AccountData data = getAccountData(uuid);
-            BigDecimal current = data != null ? data.balance : config.defaultBalance;
-            long version = data != null ? data.version : 0;
-            
-            if (current.compareTo(amount) >= 0) {
-                if (storage.setBalance(uuid, current.subtract(amount), version)) {
-                     // Update cache on success
-                    if (data != null) {
-                        data.balance = current.subtract(amount);
-                        data.version++;
-                        accountCache.put(uuid, data);
-                    } else {
-                        accountCache.invalidate(uuid);
-                    }
-                    
-                    if (publishToRedis && config.redis.enabled) {
-                        savage.commoneconomy.util.RedisManager.getInstance().publishBalanceUpdate(uuid, current.subtract(amount));
-                    }
-                    
-                    return true;
+        return applyDelta(uuid, Money.negate(Money.fromBigDecimal(amount)), publishToRedis);
+    }
+
+    public boolean removeBalanceMinor(UUID uuid, long amount, boolean publishToRedis) {
+        return applyDelta(uuid, Money.negate(amount), publishToRedis);
+    }
+
+    private boolean applyDelta(UUID uuid, long delta, boolean publishToRedis) {
+        WriteBehindBuffer buffer = writeBehind;
+        AccountData data;
+        try {
+            if (buffer != null) {
+                data = applyDeltaWriteBehind(buffer, uuid, delta);
+                if (data == null) {
+                    return false;
                 }
             } else {
-                return false; // Insufficient funds
+                // Single atomic update in storage; the funds check happens there too, so no retry loop is needed
+                data = storage.applyDelta(uuid, delta);
+                if (data == null) {
+                    // Missing account or insufficient funds, make sure the next read isn't served stale data
+                    invalidateAccount(uuid);
+                    return false;
+                }
+                cacheAccount(uuid, data);
+                storeShared(uuid, data);
             }
-            // On failure, invalidate cache
-            accountCache.invalidate(uuid);
-            
-            retries--;
-            try {
-                Thread.sleep(10 + (long)(Math.random() * 10)); // Small random backoff
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        } catch (ArithmeticException e) {
+            SavsCommonEconomy.LOGGER.warn("Rejected balance change for " + uuid + ", the new balance would overflow");
+            invalidateAccount(uuid);
+            return false;
+        }
+
+        if (publishToRedis && config.redis.enabled) {
+            savage.commoneconomy.util.RedisManager.getInstance().publishBalanceUpdate(uuid, data.balance, data.version);
+        }
+        return true;
+    }
+
+    public boolean transfer(UUID from, UUID to, BigDecimal amount) {
+        return transfer(from, to, amount, true);
+    }
+
+    public boolean transfer(UUID from, UUID to, BigDecimal amount, boolean publishToRedis) {
+        return transferMinor(from, to, Money.fromBigDecimal(amount), publishToRedis);
+    }
+
+    public boolean transferMinor(UUID from, UUID to, long amount, boolean publishToRedis) {
+        TransferResult result = transferForResult(from, to, amount);
+        if (result == null) {
+            return false;
+        }
+
+        if (publishToRedis && config.redis.enabled) {
+            savage.commoneconomy.util.RedisManager.getInstance().publishBalanceUpdate(from, result.from.balance, result.from.version);
+            savage.commoneconomy.util.RedisManager.getInstance().publishBalanceUpdate(to, result.to.balance, result.to.version);
+        }
+        return true;
+    }
+
+    // Transfers without publishing and returns both accounts as committed, or null if it was refused;
+    // for callers that publish themselves, e.g. to attach a message for the receiver
+    public TransferResult transferForResult(UUID from, UUID to, long amount) {
+        WriteBehindBuffer buffer = writeBehind;
+        TransferResult result;
+        try {
+            if (buffer != null) {
+                result = transferWriteBehind(buffer, from, to, amount);
+            } else {
+                // Both legs commit together in storage, so money is never debited without being credited
+                result = storage.transfer(from, to, amount);
+                if (result == null) {
+                    invalidateAccount(from);
+                    invalidateAccount(to);
+                    return null;
+                }
+                cacheAccount(from, result.from);
+                cacheAccount(to, result.to);
+                storeShared(from, result.from);
+                storeShared(to, result.to);
             }
+        } catch (ArithmeticException e) {
+            SavsCommonEconomy.LOGGER.warn("Rejected transfer from " + from + " to " + to + ", the new balance would overflow");
+            invalidateAccount(from);
+            invalidateAccount(to);
+            return null;
         }
-        return false; // Failed after retries
+        return result;
     }
-    
-    private AccountData getAccountData(UUID uuid) {
-        AccountData data = accountCache.getIfPresent(uuid);
-        if (data != null) {
+
+    // Write-behind: the cache is authoritative and storage catches up on the next flush
+    private AccountData applyDeltaWriteBehind(WriteBehindBuffer buffer, UUID uuid, long delta) {
+        synchronized (writeBehindLock) {
+            AccountData current = getAccountData(uuid);
+            if (current == null) {
+                return null;
+            }
+            long updated = Money.add(current.balance, delta);
+            if (updated < 0) {
+                return null; // Insufficient funds
+            }
+
+            AccountData data = new AccountData(current.name, updated, current.version + 1);
+            cacheAccount(uuid, data);
+            buffer.enqueue(uuid, delta);
             return data;
         }
-        
-        data = storage.getAccount(uuid);
-        if (data != null) {
-            accountCache.put(uuid, data);
+    }
+
+    private TransferResult transferWriteBehind(WriteBehindBuffer buffer, UUID from, UUID to, long amount) {
+        synchronized (writeBehindLock) {
+            AccountData source = getAccountData(from);
+            AccountData target = getAccountData(to);
+            if (source == null || target == null || source.balance < amount) {
+                return null;
+            }
+            if (from.equals(to)) {
+                return new TransferResult(source, target);
+            }
+
+            // Compute both sides before touching the cache so an overflow leaves nothing half-applied
+            AccountData newSource = new AccountData(source.name, Money.subtract(source.balance, amount), source.version + 1);
+            AccountData newTarget = new AccountData(target.name, Money.add(target.balance, amount), target.version + 1);
+            cacheAccount(from, newSource);
+            cacheAccount(to, newTarget);
+            buffer.enqueue(from, Money.negate(amount));
+            buffer.enqueue(to, amount);
+            return new TransferResult(newSource, newTarget);
+        }
+    }
+
+    // Every locally known balance change goes through here so the leaderboard stays current
+    private void cacheAccount(UUID uuid, AccountData data) {
+        accountCache.put(uuid, java.util.Optional.of(data));
+        leaderboard.update(uuid, data.name, data.balance, leaderboardVersion(data));
+    }
+
+    // With write-behind the cached version counts every change while storage counts one per flush, so the two
+    // can't be compared; local states are then passed on as unversioned and always apply
+    private long leaderboardVersion(AccountData data) {
+        return writeBehind != null ? 0 : data.version;
+    }
+
+    // Write-through to the shared Redis cache, if there is one
+    private void storeShared(UUID uuid, AccountData data) {
+        savage.commoneconomy.storage.RedisAccountCache shared = sharedCache;
+        if (shared != null) {
+            shared.store(uuid, data);
         }
-        return data;
+    }
+
+    private AccountData getAccountData(UUID uuid) {
+        return accountCache.get(uuid).orElse(null);
+    }
+
+    private AccountData loadAccount(UUID uuid) {
+        WriteBehindBuffer buffer = writeBehind;
+        if (buffer != null) {
+            return buffer.load(uuid);
+        }
+        savage.commoneconomy.storage.RedisAccountCache shared = sharedCache;
+        return shared != null ? shared.load(uuid, storage::getAccount) : storage.getAccount(uuid);
     }
 
     public boolean hasAccount(UUID uuid) {
-        if (accountCache.getIfPresent(uuid) != null) return true;
-        return storage.hasAccount(uuid);
+        return accountCache.get(uuid).isPresent();
     }
 
     public void createAccount(UUID uuid, String name) {
+        java.util.Optional<AccountData> previous = accountCache.getIfPresent(uuid);
         storage.createAccount(uuid, name);
-        // Cache the new account
-        accountCache.put(uuid, new AccountData(name, config.defaultBalance, 0));
-        uuidCache.put(name.toLowerCase(), uuid);
-        offlineNamesCache.invalidateAll(); // Invalidate names list
+        savage.commoneconomy.storage.RedisAccountCache shared = sharedCache;
+        if (shared != null) {
+            // May have been a rename, which keeps the version, so fence off copies up to it
+            AccountData stored = storage.getAccount(uuid);
+            shared.invalidate(uuid, stored != null ? stored.version : 0);
+        }
+        // Cache the new account, replacing any cached "absent" entries
+        cacheAccount(uuid, new AccountData(name, defaultBalanceMinor, 0));
+        uuidCache.put(name.toLowerCase(), java.util.Optional.of(uuid));
+        if (previous != null && previous.isPresent() && !previous.get().name.equals(name)) {
+            nameIndex.remove(previous.get().name);
+        }
+        nameIndex.add(name);
     }
 
     public void deleteAccount(UUID uuid) {
+        AccountData data = getAccountData(uuid);
+        savage.commoneconomy.storage.RedisAccountCache shared = sharedCache;
+        // The last version before the delete fences the shared cache against copies still in flight
+        AccountData stored = shared != null ? storage.getAccount(uuid) : null;
         storage.deleteAccount(uuid);
         // Invalidate all caches
         accountCache.invalidate(uuid);
-        AccountData data = accountCache.getIfPresent(uuid);
+        if (shared != null) {
+            shared.invalidate(uuid, stored != null ? stored.version : data != null ? data.version : 0);
+        }
+        leaderboard.remove(uuid);
         if (data != null) {
             uuidCache.invalidate(data.name.toLowerCase());
+            nameIndex.remove(data.name);
         }
-        offlineNamesCache.invalidateAll();
     }
     
     public void invalidateCache(UUID uuid) {
-        accountCache.invalidate(uuid);
+        invalidateAccount(uuid);
+    }
+
+    // Another server changed this balance
+    // The message covers the changes from baseVersion to version; a cache that's inside that range is updated in
+    // place, one that's behind it has missed an update and is invalidated
+    public RemoteUpdate applyRemoteUpdate(UUID uuid, Long balance, long baseVersion, long version) {
+        if (balance == null || version <= 0) {
+            // Nothing to compare against, fall back to a reload
+            invalidateAccount(uuid);
+            refreshLeaderboard(uuid);
+            return RemoteUpdate.INVALIDATED;
+        }
+
+        RemoteUpdate[] outcome = {RemoteUpdate.NOT_CACHED};
+        accountCache.asMap().computeIfPresent(uuid, (key, cached) -> {
+            if (cached.isEmpty()) {
+                outcome[0] = RemoteUpdate.INVALIDATED; // Created on another server
+                return cached;
+            }
+            AccountData data = cached.get();
+            if (data.version >= version) {
+                outcome[0] = RemoteUpdate.STALE;
+                return cached;
+            }
+            if (data.version < baseVersion) {
+                outcome[0] = RemoteUpdate.INVALIDATED;
+                return cached;
+            }
+            outcome[0] = RemoteUpdate.APPLIED;
+            return java.util.Optional.of(new AccountData(data.name, balance, version));
+        });
+
+        if (outcome[0] != RemoteUpdate.STALE) {
+            if (leaderboard.contains(uuid)) {
+                leaderboard.update(uuid, null, balance, version);
+            } else {
+                refreshLeaderboard(uuid); // Created or first paid on another server, the name has to come from storage
+            }
+        }
+        if (outcome[0] == RemoteUpdate.INVALIDATED) {
+            invalidateAccount(uuid);
+        }
+        return outcome[0];
+    }
+
+    // Re-reads the account off the calling thread so the leaderboard gets its name and committed version
+    private void refreshLeaderboard(UUID uuid) {
+        supplyAsync(() -> {
+            AccountData data = loadAccount(uuid);
+            if (data != null) {
+                leaderboard.update(uuid, data.name, data.balance, leaderboardVersion(data));
+            }
+            return null;
+        });
+    }
+
+    // Cached account without loading it, or null
+    public AccountData getCachedAccount(UUID uuid) {
+        java.util.Optional<AccountData> data = accountCache.getIfPresent(uuid);
+        return data != null ? data.orElse(null) : null;
+    }
+
+    /**
+     * Reloads the given accounts from storage in one batch and refreshes whatever is cached, e.g. after a Redis outage.
+     * Returns the accounts as loaded; missing ones are left out.
+     */
+    public java.util.Map<UUID, AccountData> resyncAccounts(java.util.Collection<UUID> uuids) {
+        java.util.Map<UUID, AccountData> fresh;
+        if (writeBehind != null) {
+            // Storage lags behind the buffer, so go through it one account at a time
+            fresh = new java.util.HashMap<>();
+            for (UUID uuid : uuids) {
+                AccountData data = loadAccount(uuid);
+                if (data != null) {
+                    fresh.put(uuid, data);
+                }
+            }
+        } else {
+            fresh = storage.getAccounts(uuids);
+        }
+
+        for (java.util.Map.Entry<UUID, AccountData> entry : fresh.entrySet()) {
+            AccountData data = entry.getValue();
+            storeShared(entry.getKey(), data);
+            // Keep a cached copy that a local change made newer while we were loading
+            accountCache.asMap().computeIfPresent(entry.getKey(), (key, cached) ->
+                    cached.isPresent() && cached.get().version > data.version ? cached : java.util.Optional.of(data));
+            leaderboard.update(entry.getKey(), data.name, data.balance, leaderboardVersion(data));
+        }
+        return fresh;
+    }
+
+    // Drops every cached balance, e.g. after updates from other servers were lost
+    public void invalidateAllAccounts() {
+        for (UUID uuid : accountCache.asMap().keySet()) {
+            invalidateAccount(uuid);
+        }
+    }
+
+    // Pinned accounts are reloaded in the background instead, so online players never miss
+    private void invalidateAccount(UUID uuid) {
+        if (pinnedAccounts.contains(uuid)) {
+            accountCache.refresh(uuid);
+        } else {
+            accountCache.invalidate(uuid);
+        }
+    }
+
+    /**
+     * Pins the player's account in the cache for as long as they are online and loads it off the server thread.
+     */
+    public CompletableFuture<Void> onPlayerJoin(UUID uuid, String name) {
+        pinnedAccounts.add(uuid);
+        reweigh(uuid);
+        return ensureAccountAsync(uuid, name);
+    }
+
+    // Moves the account back to the normal evictable, expiring tier
+    public void onPlayerDisconnect(UUID uuid) {
+        pinnedAccounts.remove(uuid);
+        reweigh(uuid);
+    }
+
+    private void reweigh(UUID uuid) {
+        // Writing a new Optional counts as an update, so Caffeine recomputes weight and expiry
+        accountCache.asMap().computeIfPresent(uuid, (key, data) -> data.map(account -> account));
+    }
+
+    /**
+     * Current size and statistics of each cache, for /ecodebug cache and metrics exporters.
+     */
+    public java.util.List<CacheSnapshot> getCacheStats() {
+        return java.util.List.of(
+                new CacheSnapshot("accounts", accountCache.estimatedSize(), accountCache.stats()),
+                new CacheSnapshot("uuids", uuidCache.estimatedSize(), uuidCache.stats())
+        );
+    }
+
+    // Null unless the Redis account cache is enabled
+    public savage.commoneconomy.storage.RedisAccountCache getSharedCache() {
+        return sharedCache;
+    }
+
+    public int getNameIndexSize() {
+        return nameIndex.size();
+    }
+
+    public java.util.Set<UUID> getPinnedAccounts() {
+        return java.util.Collections.unmodifiableSet(pinnedAccounts);
+    }
+
+    public int getPinnedAccountCount() {
+        return pinnedAccounts.size();
     }
 
     public void resetBalance(UUID uuid) {
-        setBalance(uuid, config.defaultBalance);
+        setBalanceMinor(uuid, defaultBalanceMinor, true);
     }
 
     public UUID getUUID(String name) {
-        UUID uuid = uuidCache.getIfPresent(name.toLowerCase());
-        if (uuid != null) return uuid;
-        
-        uuid = storage.getUUID(name);
-        if (uuid != null) {
-            uuidCache.put(name.toLowerCase(), uuid);
-        }
-        return uuid;
+        return uuidCache.get(name.toLowerCase()).orElse(null);
     }
 
+    // Read-only view of every known account name
     public java.util.Collection<String> getOfflinePlayerNames() {
-        java.util.List<String> names = offlineNamesCache.getIfPresent("all");
-        if (names != null) return names;
-        
-        names = new java.util.ArrayList<>(storage.getOfflinePlayerNames());
-        offlineNamesCache.put("all", names);
-        return names;
+        return nameIndex.all();
+    }
+
+    /**
+     * Up to limit account names starting with prefix (case-insensitive), for tab completion.
+     */
+    public CompletableFuture<java.util.List<String>> suggestNamesAsync(String prefix, int limit) {
+        resyncNamesIfStale();
+        return supplyAsync(() -> nameIndex.search(prefix, limit));
+    }
+
+    // Other servers on the network create accounts we never hear about, so re-read names now and then
+    private void resyncNamesIfStale() {
+        if (!config.redis.enabled || System.currentTimeMillis() - lastNameResync < config.cache.nameResyncSeconds * 1000) {
+            return;
+        }
+        if (nameResyncRunning.compareAndSet(false, true)) {
+            supplyAsync(() -> {
+                try {
+                    nameIndex.replaceAll(storage.getOfflinePlayerNames());
+                    lastNameResync = System.currentTimeMillis();
+                } finally {
+                    nameResyncRunning.set(false);
+                }
+                return null;
+            });
+        }
+    }
+
+    public String format(long minor) {
+        if (config.symbolBeforeAmount) {
+            return config.currencySymbol + Money.toPlainString(minor);
+        } else {
+            return Money.toPlainString(minor) + config.currencySymbol;
+        }
     }
 
     public String format(BigDecimal amount) {
@@ -319,7 +821,41 @@ public class EconomyManager {
 
     // Leaderboard support
     public java.util.List<AccountData> getTopAccounts(int limit) {
-        return storage.getTopAccounts(limit);
+        return leaderboard.page(0, limit);
+    }
+
+    // Accounts at 0-based positions offset .. offset + limit - 1 of the leaderboard
+    public java.util.List<AccountData> getTopAccounts(int offset, int limit) {
+        return leaderboard.page(offset, limit);
+    }
+
+    // One /baltop page with the page count, read together
+    public savage.commoneconomy.util.Leaderboard.Page getTopPage(int page, int pageSize) {
+        return leaderboard.pageOf(page, pageSize);
+    }
+
+    // Rank, entry and board size of the account, or null if it has none. An account this server hasn't ranked yet,
+    // e.g. one created on another server since the last resync, is read from storage first.
+    public CompletableFuture<savage.commoneconomy.util.Leaderboard.Ranked> getRankedAsync(UUID uuid) {
+        if (leaderboard.contains(uuid)) {
+            return CompletableFuture.completedFuture(leaderboard.ranked(uuid));
+        }
+        return supplyAsync(() -> {
+            AccountData data = getAccountData(uuid);
+            if (data != null) {
+                leaderboard.update(uuid, data.name, data.balance, leaderboardVersion(data));
+            }
+            return leaderboard.ranked(uuid);
+        });
+    }
+
+    // 1-based leaderboard position of the account, or 0 if it has none
+    public int getRank(UUID uuid) {
+        return leaderboard.rank(uuid);
+    }
+
+    public int getRankedAccountCount() {
+        return leaderboard.size();
     }
 
     // Sell system support
@@ -364,19 +900,85 @@ public class EconomyManager {
         }
     }
 
+    // Found entries live for presentTtl, "not found" entries only for absentTtl, pinned entries forever
+    private static class PresenceExpiry<K, V> implements com.github.benmanes.caffeine.cache.Expiry<K, java.util.Optional<V>> {
+        private final long presentTtl;
+        private final long absentTtl;
+        private final java.util.function.Predicate<K> pinned;
+
+        PresenceExpiry(long presentTtl, long absentTtl, java.util.function.Predicate<K> pinned) {
+            this.presentTtl = presentTtl;
+            this.absentTtl = absentTtl;
+            this.pinned = pinned;
+        }
+
+        private long ttl(K key, java.util.Optional<V> value) {
+            if (value.isEmpty()) {
+                return absentTtl;
+            }
+            return pinned.test(key) ? Long.MAX_VALUE : presentTtl;
+        }
+
+        @Override
+        public long expireAfterCreate(K key, java.util.Optional<V> value, long currentTime) {
+            return ttl(key, value);
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, java.util.Optional<V> value, long currentTime, long currentDuration) {
+            return ttl(key, value);
+        }
+
+        @Override
+        public long expireAfterRead(K key, java.util.Optional<V> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
     public static class AccountData {
         public String name;
-        public BigDecimal balance;
+        // Minor units; written to JSON as a decimal so balances.json keeps its format
+        @com.google.gson.annotations.JsonAdapter(Money.JsonAdapter.class)
+        public long balance;
         public long version;
 
-        public AccountData(String name, BigDecimal balance) {
+        public AccountData(String name, long balance) {
             this(name, balance, 0);
         }
 
-        public AccountData(String name, BigDecimal balance, long version) {
+        public AccountData(String name, long balance, long version) {
             this.name = name;
             this.balance = balance;
             this.version = version;
         }
     }
+
+    public enum RemoteUpdate {
+        APPLIED, // Cached account updated in place
+        STALE, // Cache was already at or past this version
+        INVALIDATED, // Missed update or unversioned message, the account is reloaded
+        NOT_CACHED
+    }
+
+    public static class CacheSnapshot {
+        public final String name;
+        public final long size;
+        public final com.github.benmanes.caffeine.cache.stats.CacheStats stats;
+
+        public CacheSnapshot(String name, long size, com.github.benmanes.caffeine.cache.stats.CacheStats stats) {
+            this.name = name;
+            this.size = size;
+            this.stats = stats;
+        }
+    }
+
+    public static class TransferResult {
+        public final AccountData from;
+        public final AccountData to;
+
+        public TransferResult(AccountData from, AccountData to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
 }
@@ -49,19 +49,36 @@ public class SavsCommonEconomy implements ModInitializer {
 			}
 		});
 
+		// Apply Redis messages on the server thread
+		net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents.END_SERVER_TICK.register(server -> {
+			if (EconomyManager.getInstance().getConfig().redis.enabled) {
+				savage.commoneconomy.util.RedisManager.getInstance().processInbound();
+			}
+		});
+
 		// Save economy data when server stops
 		ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
 			EconomyManager.getInstance().save();
 			if (EconomyManager.getInstance().getConfig().enableChestShops) {
 				ShopManager.getInstance().save();
 			}
+			// Publish updates still waiting in the queue
+			if (EconomyManager.getInstance().getConfig().redis.enabled) {
+				savage.commoneconomy.util.RedisManager.getInstance().shutdown();
+			}
 		});
 		
-		// Create account on join
+		// Create and pin the account on join, release it on leave
 		ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
-			if (!EconomyManager.getInstance().hasAccount(handler.player.getUuid())) {
-				EconomyManager.getInstance().createAccount(handler.player.getUuid(), handler.player.getName().getString());
-			}
+			EconomyManager.getInstance().onPlayerJoin(handler.player.getUuid(), handler.player.getName().getString())
+					.exceptionally(e -> {
+						LOGGER.error("Failed to create account for " + handler.player.getName().getString(), e);
+						return null;
+					});
+		});
+
+		ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
+			EconomyManager.getInstance().onPlayerDisconnect(handler.player.getUuid());
 		});
 		
 		// Register right-click handler for bank notes
@@ -75,10 +92,23 @@ public class SavsCommonEconomy implements ModInitializer {
 						if (nbt.contains("EconomyBankNote") && nbt.contains("Value")) {
 							double valueDouble = nbt.getDouble("Value").orElse(0.0);
 							java.math.BigDecimal value = java.math.BigDecimal.valueOf(valueDouble);
-							EconomyManager.getInstance().addBalance(player.getUuid(), value);
-							player.sendMessage(net.minecraft.text.Text.literal("Redeemed bank note for " + EconomyManager.getInstance().format(value)).formatted(net.minecraft.util.Formatting.GREEN), true);
-							savage.commoneconomy.util.TransactionLogger.log("DEPOSIT", "Bank Note", player.getName().getString(), value, "Redeemed Note");
+							// Take the note now so it can't be redeemed twice while the deposit is in flight
+							net.minecraft.item.ItemStack note = stack.copyWithCount(1);
 							stack.decrement(1);
+							EconomyManager.getInstance().addBalanceAsync(player.getUuid(), value, true)
+									.exceptionally(e -> {
+										LOGGER.error("Failed to redeem bank note for " + player.getName().getString(), e);
+										return false;
+									})
+									.thenAcceptAsync(success -> {
+										if (success) {
+											player.sendMessage(net.minecraft.text.Text.literal("Redeemed bank note for " + EconomyManager.getInstance().format(value)).formatted(net.minecraft.util.Formatting.GREEN), true);
+											savage.commoneconomy.util.TransactionLogger.log("DEPOSIT", "Bank Note", player.getName().getString(), value, "Redeemed Note");
+										} else {
+											player.getInventory().offerOrDrop(note);
+											player.sendMessage(net.minecraft.text.Text.literal("Could not redeem bank note.").formatted(net.minecraft.util.Formatting.RED), true);
+										}
+									}, EconomyManager.getInstance().mainThread());
 							return net.minecraft.util.ActionResult.SUCCESS;
 						}
 					}
@@ -7,6 +7,7 @@ import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.text.Text;
 import savage.commoneconomy.EconomyManager;
 import savage.commoneconomy.EconomyManager.AccountData;
+import savage.commoneconomy.util.RedisManager;
 
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -26,6 +27,10 @@ public class DebugCommands {
                         .executes(DebugCommands::runVerification))
                 .then(CommandManager.literal("cleanup")
                         .executes(DebugCommands::runCleanup))
+                .then(CommandManager.literal("cache")
+                        .executes(DebugCommands::showCacheStats))
+                .then(CommandManager.literal("redis")
+                        .executes(DebugCommands::showRedisStats))
                 .then(CommandManager.literal("api")
                         .executes(context -> {
                             try {
@@ -136,6 +141,55 @@ public class DebugCommands {
         return 1;
     }
     
+    private static int showCacheStats(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        EconomyManager manager = EconomyManager.getInstance();
+
+        source.sendFeedback(() -> Text.literal("§6--- Economy Caches ---"), false);
+        for (EconomyManager.CacheSnapshot cache : manager.getCacheStats()) {
+            var stats = cache.stats;
+            String hitRate = String.format("%.1f%%", stats.hitRate() * 100);
+            String avgLoad = String.format("%.2fms", stats.averageLoadPenalty() / 1_000_000.0);
+            source.sendFeedback(() -> Text.literal("§e" + cache.name + "§7: size " + cache.size
+                    + ", hit rate " + hitRate + " (" + stats.hitCount() + " hits / " + stats.missCount() + " misses)"), false);
+            source.sendFeedback(() -> Text.literal("§7  loads " + stats.loadSuccessCount() + " ok / " + stats.loadFailureCount() + " failed, avg "
+                    + avgLoad + ", evictions " + stats.evictionCount()), false);
+        }
+        savage.commoneconomy.storage.RedisAccountCache shared = manager.getSharedCache();
+        if (shared != null) {
+            source.sendFeedback(() -> Text.literal("§eredis§7: " + shared.getHitCount() + " hits / " + shared.getMissCount() + " misses, "
+                    + shared.getStaleWriteCount() + " stale writes rejected, " + shared.getErrorCount() + " errors"), false);
+        }
+        source.sendFeedback(() -> Text.literal("§7Pinned online accounts: " + manager.getPinnedAccountCount()), false);
+        source.sendFeedback(() -> Text.literal("§7Indexed account names: " + manager.getNameIndexSize()), false);
+        return 1;
+    }
+
+    private static int showRedisStats(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        if (!EconomyManager.getInstance().getConfig().redis.enabled) {
+            source.sendFeedback(() -> Text.literal("§cRedis is disabled."), false);
+            return 0;
+        }
+        RedisManager redis = RedisManager.getInstance();
+
+        source.sendFeedback(() -> Text.literal("§6--- Redis Sync ---"), false);
+        source.sendFeedback(() -> Text.literal("§7Node " + redis.getNodeId() + ", " + (redis.isConnected() ? "§aconnected" : "§cdisconnected")), false);
+        source.sendFeedback(() -> Text.literal("§ePublished§7: " + redis.getPublishedCount() + " sent, " + redis.getCoalescedCount()
+                + " merged into later updates, " + redis.getDroppedCount() + " dropped"), false);
+        source.sendFeedback(() -> Text.literal("§eReceived§7: " + redis.getReceivedCount() + " from other servers, "
+                + redis.getOwnMessagesIgnored() + " own messages skipped (invalidations saved), " + redis.getInboundBacklog() + " waiting"), false);
+        source.sendFeedback(() -> Text.literal("§7  applied in place " + redis.getOutcomeCount(EconomyManager.RemoteUpdate.APPLIED)
+                + ", stale " + redis.getOutcomeCount(EconomyManager.RemoteUpdate.STALE)
+                + ", invalidated " + redis.getOutcomeCount(EconomyManager.RemoteUpdate.INVALIDATED)
+                + ", not cached " + redis.getOutcomeCount(EconomyManager.RemoteUpdate.NOT_CACHED)), false);
+        long outageMillis = redis.getCurrentOutageMillis();
+        source.sendFeedback(() -> Text.literal("§eOutages§7: " + redis.getOutageCount() + ", "
+                + (outageMillis > 0 ? "current one " + outageMillis / 1000 + "s" : "last lasted " + redis.getLastOutageMillis() + "ms")
+                + ", " + redis.getPendingResyncCount() + " account(s) to resync"), false);
+        return 1;
+    }
+
     private static int runCleanup(CommandContext<ServerCommandSource> context) {
         ServerCommandSource source = context.getSource();
         EconomyManager manager = EconomyManager.getInstance();
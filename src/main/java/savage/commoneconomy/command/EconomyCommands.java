@@ -2,11 +2,11 @@ package savage.commoneconomy.command;
 
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.DoubleArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
-import net.minecraft.command.CommandSource;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
@@ -14,19 +14,26 @@ import net.minecraft.text.Text;
 import savage.commoneconomy.EconomyManager;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.UUID;
 
 public class EconomyCommands {
 
+    private static final int MAX_NAME_SUGGESTIONS = 50;
+    private static final int BALTOP_PAGE_SIZE = 10;
+
     private static final SuggestionProvider<ServerCommandSource> PLAYER_SUGGESTION_PROVIDER = (context, builder) -> {
-        List<String> suggestions = new ArrayList<>();
+        String prefix = builder.getRemaining().toLowerCase();
         // Add online players
-        suggestions.addAll(context.getSource().getPlayerNames());
-        // Add offline players from cache
-        suggestions.addAll(EconomyManager.getInstance().getOfflinePlayerNames());
-        return CommandSource.suggestMatching(suggestions, builder);
+        for (String name : context.getSource().getPlayerNames()) {
+            if (name.toLowerCase().startsWith(prefix)) {
+                builder.suggest(name);
+            }
+        }
+        // Add offline players from the name index, only the first few matches
+        return EconomyManager.getInstance().suggestNamesAsync(prefix, MAX_NAME_SUGGESTIONS).thenApply(names -> {
+            names.forEach(builder::suggest);
+            return builder.build();
+        });
     };
 
     public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
@@ -72,10 +79,22 @@ public class EconomyCommands {
 
         dispatcher.register(CommandManager.literal("baltop")
                 .requires(source -> savage.commoneconomy.util.PermissionsHelper.check(source, "savscommoneconomy.command.baltop", true))
-                .executes(EconomyCommands::balTop));
+                .executes(context -> balTop(context, 1))
+                .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
+                        .executes(context -> balTop(context, IntegerArgumentType.getInteger(context, "page")))));
         dispatcher.register(CommandManager.literal("balancetop")
                 .requires(source -> savage.commoneconomy.util.PermissionsHelper.check(source, "savscommoneconomy.command.baltop", true))
-                .executes(EconomyCommands::balTop));
+                .executes(context -> balTop(context, 1))
+                .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
+                        .executes(context -> balTop(context, IntegerArgumentType.getInteger(context, "page")))));
+
+        dispatcher.register(CommandManager.literal("balrank")
+                .requires(source -> savage.commoneconomy.util.PermissionsHelper.check(source, "savscommoneconomy.command.balrank", true))
+                .executes(context -> balRank(context, "@s"))
+                .then(CommandManager.argument("target", StringArgumentType.string())
+                        .requires(source -> savage.commoneconomy.util.PermissionsHelper.check(source, "savscommoneconomy.command.balrank.others", true))
+                        .suggests(PLAYER_SUGGESTION_PROVIDER)
+                        .executes(context -> balRank(context, StringArgumentType.getString(context, "target")))));
 
         dispatcher.register(CommandManager.literal("pay")
                 .requires(source -> savage.commoneconomy.util.PermissionsHelper.check(source, "savscommoneconomy.command.pay", true))
@@ -93,18 +112,46 @@ public class EconomyCommands {
                         .executes(EconomyCommands::checkOtherBalance)));
     }
 
-    private static int balTop(CommandContext<ServerCommandSource> context) {
-        java.util.List<EconomyManager.AccountData> topAccounts = EconomyManager.getInstance().getTopAccounts(10);
-        
-        context.getSource().sendFeedback(() -> Text.literal("--- Balance Top 10 ---"), false);
-        for (int i = 0; i < topAccounts.size(); i++) {
-            EconomyManager.AccountData account = topAccounts.get(i);
-            int rank = i + 1;
-            context.getSource().sendFeedback(() -> Text.literal(rank + ". " + account.name + ": " + EconomyManager.getInstance().format(account.balance)), false);
+    private static int balTop(CommandContext<ServerCommandSource> context, int page) {
+        // Served from the in-memory leaderboard, so this never waits on storage
+        EconomyManager manager = EconomyManager.getInstance();
+        savage.commoneconomy.util.Leaderboard.Page top = manager.getTopPage(page, BALTOP_PAGE_SIZE);
+        int offset = (top.page - 1) * BALTOP_PAGE_SIZE;
+
+        context.getSource().sendFeedback(() -> Text.literal("--- Balance Top (Page " + top.page + "/" + top.totalPages + ") ---"), false);
+        for (int i = 0; i < top.accounts.size(); i++) {
+            EconomyManager.AccountData account = top.accounts.get(i);
+            int rank = offset + i + 1;
+            context.getSource().sendFeedback(() -> Text.literal(rank + ". " + account.name + ": " + manager.format(account.balance)), false);
         }
         return 1;
     }
 
+    private static int balRank(CommandContext<ServerCommandSource> context, String targetName) throws CommandSyntaxException {
+        boolean self = targetName.equals("@s");
+        String displayName = getTargetName(context, targetName);
+        EconomyManager manager = EconomyManager.getInstance();
+
+        getTargetUUIDAsync(context, targetName).thenCompose(targetUUID -> targetUUID == null
+                ? java.util.concurrent.CompletableFuture.<savage.commoneconomy.util.Leaderboard.Ranked>completedFuture(null)
+                : manager.getRankedAsync(targetUUID)).thenAcceptAsync(ranked -> {
+            if (ranked == null) {
+                context.getSource().sendError(Text.literal("Player not found or has never joined."));
+                return;
+            }
+            String prefix = self ? "Your rank: #" : displayName + "'s rank: #";
+            context.getSource().sendFeedback(() -> Text.literal(prefix + ranked.rank + " of " + ranked.total + " (" + manager.format(ranked.account.balance) + ")"), false);
+        }, manager.mainThread()).exceptionally(e -> reportFailure(context, e));
+        return 1;
+    }
+
+    // Logs a failed async operation and tells the sender something went wrong
+    private static Void reportFailure(CommandContext<ServerCommandSource> context, Throwable e) {
+        savage.commoneconomy.SavsCommonEconomy.LOGGER.error("Economy command failed", e);
+        EconomyManager.getInstance().mainThread().execute(() -> context.getSource().sendError(Text.literal("An internal error occurred.")));
+        return null;
+    }
+
     private static java.util.UUID getTargetUUID(CommandContext<ServerCommandSource> context, String targetName) throws CommandSyntaxException {
         if (targetName.equals("@s")) {
             return context.getSource().getPlayerOrThrow().getUuid();
@@ -117,6 +164,19 @@ public class EconomyCommands {
         return EconomyManager.getInstance().getUUID(targetName);
     }
 
+    // Same as getTargetUUID, but an offline lookup runs off the server thread
+    private static java.util.concurrent.CompletableFuture<UUID> getTargetUUIDAsync(CommandContext<ServerCommandSource> context, String targetName) throws CommandSyntaxException {
+        if (targetName.equals("@s")) {
+            return java.util.concurrent.CompletableFuture.completedFuture(context.getSource().getPlayerOrThrow().getUuid());
+        }
+
+        ServerPlayerEntity target = context.getSource().getServer().getPlayerManager().getPlayer(targetName);
+        if (target != null) {
+            return java.util.concurrent.CompletableFuture.completedFuture(target.getUuid());
+        }
+        return EconomyManager.getInstance().getUUIDAsync(targetName);
+    }
+
     private static String getTargetName(CommandContext<ServerCommandSource> context, String targetName) throws CommandSyntaxException {
         if (targetName.equals("@s")) {
             return context.getSource().getPlayerOrThrow().getName().getString();
@@ -131,23 +191,27 @@ public class EconomyCommands {
 
     private static int checkSelfBalance(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
         ServerPlayerEntity player = context.getSource().getPlayerOrThrow();
-        BigDecimal balance = EconomyManager.getInstance().getBalance(player.getUuid());
-        context.getSource().sendFeedback(() -> Text.literal("Your balance: " + EconomyManager.getInstance().format(balance)), false);
+        EconomyManager.getInstance().getBalanceAsync(player.getUuid()).thenAcceptAsync(balance ->
+                context.getSource().sendFeedback(() -> Text.literal("Your balance: " + EconomyManager.getInstance().format(balance)), false),
+                EconomyManager.getInstance().mainThread()).exceptionally(e -> reportFailure(context, e));
         return 1;
     }
 
     private static int checkOtherBalance(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
         String targetName = StringArgumentType.getString(context, "target");
-        UUID targetUUID = getTargetUUID(context, targetName);
         String displayName = getTargetName(context, targetName);
-
-        if (targetUUID == null) {
-            context.getSource().sendError(Text.literal("Player not found or has never joined."));
-            return 0;
-        }
-
-        BigDecimal balance = EconomyManager.getInstance().getBalance(targetUUID);
-        context.getSource().sendFeedback(() -> Text.literal(displayName + "'s balance: " + EconomyManager.getInstance().format(balance)), false);
+        EconomyManager manager = EconomyManager.getInstance();
+
+        getTargetUUIDAsync(context, targetName).thenCompose(targetUUID -> targetUUID == null
+                ? java.util.concurrent.CompletableFuture.<BigDecimal>completedFuture(null)
+                : manager.getBalanceAsync(targetUUID)
+        ).thenAcceptAsync(balance -> {
+            if (balance == null) {
+                context.getSource().sendError(Text.literal("Player not found or has never joined."));
+                return;
+            }
+            context.getSource().sendFeedback(() -> Text.literal(displayName + "'s balance: " + manager.format(balance)), false);
+        }, manager.mainThread()).exceptionally(e -> reportFailure(context, e));
         return 1;
     }
 
@@ -168,31 +232,52 @@ public class EconomyCommands {
         }
     }
 
+    // Sub-cent amounts would be rounded (0.001 to nothing at all), so they are refused instead
+    private static boolean checkAmount(CommandContext<ServerCommandSource> context, BigDecimal amount) {
+        if (!savage.commoneconomy.util.Money.isWhole(amount)) {
+            context.getSource().sendError(Text.literal("Amounts can have at most " + savage.commoneconomy.util.Money.SCALE + " decimal places."));
+            return false;
+        }
+        return true;
+    }
+
     private static int pay(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
         ServerPlayerEntity sourcePlayer = context.getSource().getPlayerOrThrow();
         String targetName = StringArgumentType.getString(context, "target");
         double amountDouble = DoubleArgumentType.getDouble(context, "amount");
         BigDecimal amount = BigDecimal.valueOf(amountDouble);
+        if (!checkAmount(context, amount)) {
+            return 0;
+        }
 
-        UUID targetUUID = getTargetUUID(context, targetName);
         String displayName = getTargetName(context, targetName);
+        EconomyManager manager = EconomyManager.getInstance();
 
-        if (targetUUID == null) {
-            context.getSource().sendError(Text.literal("Player not found or has never joined."));
-            return 0;
-        }
+        getTargetUUIDAsync(context, targetName).thenAcceptAsync(targetUUID -> {
+            if (targetUUID == null) {
+                context.getSource().sendError(Text.literal("Player not found or has never joined."));
+                return;
+            }
 
-        if (sourcePlayer.getUuid().equals(targetUUID)) {
-            context.getSource().sendError(Text.literal("You cannot pay yourself."));
-            return 0;
-        }
+            if (sourcePlayer.getUuid().equals(targetUUID)) {
+                context.getSource().sendError(Text.literal("You cannot pay yourself."));
+                return;
+            }
 
-        if (EconomyManager.getInstance().removeBalance(sourcePlayer.getUuid(), amount, false)) {
-            EconomyManager.getInstance().addBalance(targetUUID, amount, false);
+            manager.transferForResultAsync(sourcePlayer.getUuid(), targetUUID, amount).thenAcceptAsync(result ->
+                    completePay(context, sourcePlayer, targetUUID, displayName, amount, result),
+                    manager.mainThread()).exceptionally(e -> reportFailure(context, e));
+        }, manager.mainThread()).exceptionally(e -> reportFailure(context, e));
+        return 1;
+    }
+
+    private static void completePay(CommandContext<ServerCommandSource> context, ServerPlayerEntity sourcePlayer, UUID targetUUID, String displayName, BigDecimal amount, EconomyManager.TransferResult result) {
+        if (result != null) {
             String formattedAmount = EconomyManager.getInstance().format(amount);
             sendCommandFeedback(context, "Paid " + formattedAmount + " to " + displayName, false);
             
             ServerPlayerEntity target = context.getSource().getServer().getPlayerManager().getPlayer(targetUUID);
+            String remoteMessage = null;
             if (target != null) {
                 // Check notification mode for receiver too? Usually receiver gets generic API notification if enabled.
                 // But this is a specific "You received X from Y" message.
@@ -203,40 +288,31 @@ public class EconomyCommands {
                 } else if (config.commandNotificationMode == savage.commoneconomy.config.EconomyConfig.NotificationMode.CHAT) {
                     target.sendMessage(Text.literal("Received " + formattedAmount + " from " + sourcePlayer.getName().getString()), false);
                 }
-                
-                // Player is local, but we still need to invalidate caches on other servers
-                try {
-                    BigDecimal newBalance = EconomyManager.getInstance().getBalance(targetUUID);
-                    savage.commoneconomy.util.RedisManager.getInstance().publishTransaction(
-                        targetUUID,
-                        newBalance,
-                        "pay",
-                        sourcePlayer.getName().getString(),
-                        null // No chat message needed, they got it locally
-                    );
-                } catch (Exception e) {
-                    // Redis is optional
-                }
             } else {
-                // Player not on this server, publish to Redis with chat message
+                // Player not on this server, the message goes out with the update
+                remoteMessage = "Received " + formattedAmount + " from " + sourcePlayer.getName().getString();
+            }
+
+            // Both accounts changed; other servers get each side with the version storage committed
+            if (EconomyManager.getInstance().getConfig().redis.enabled) {
                 try {
-                    BigDecimal newBalance = EconomyManager.getInstance().getBalance(targetUUID);
-                    savage.commoneconomy.util.RedisManager.getInstance().publishTransaction(
+                    savage.commoneconomy.util.RedisManager redis = savage.commoneconomy.util.RedisManager.getInstance();
+                    redis.publishBalanceUpdate(sourcePlayer.getUuid(), result.from.balance, result.from.version);
+                    redis.publishTransaction(
                         targetUUID,
-                        newBalance,
+                        result.to.balance,
+                        result.to.version,
                         "pay",
                         sourcePlayer.getName().getString(),
-                        "Received " + formattedAmount + " from " + sourcePlayer.getName().getString()
+                        remoteMessage
                     );
                 } catch (Exception e) {
                     // Redis is optional
                 }
             }
             savage.commoneconomy.util.TransactionLogger.log("PAY", sourcePlayer.getName().getString(), displayName, amount, "Payment");
-            return 1;
         } else {
             context.getSource().sendError(Text.literal("Insufficient funds."));
-            return 0;
         }
     }
 
@@ -244,6 +320,9 @@ public class EconomyCommands {
         String targetName = StringArgumentType.getString(context, "target");
         double amountDouble = DoubleArgumentType.getDouble(context, "amount");
         BigDecimal amount = BigDecimal.valueOf(amountDouble);
+        if (!checkAmount(context, amount)) {
+            return 0;
+        }
         String formattedAmount = EconomyManager.getInstance().format(amount);
 
         UUID targetUUID = getTargetUUID(context, targetName);
@@ -306,6 +385,9 @@ public class EconomyCommands {
         String targetName = StringArgumentType.getString(context, "target");
         double amountDouble = DoubleArgumentType.getDouble(context, "amount");
         BigDecimal amount = BigDecimal.valueOf(amountDouble);
+        if (!checkAmount(context, amount)) {
+            return 0;
+        }
         String formattedAmount = EconomyManager.getInstance().format(amount);
 
         UUID targetUUID = getTargetUUID(context, targetName);
@@ -345,6 +427,9 @@ public class EconomyCommands {
         String targetName = StringArgumentType.getString(context, "target");
         double amountDouble = DoubleArgumentType.getDouble(context, "amount");
         BigDecimal amount = BigDecimal.valueOf(amountDouble);
+        if (!checkAmount(context, amount)) {
+            return 0;
+        }
         String formattedAmount = EconomyManager.getInstance().format(amount);
 
         UUID targetUUID = getTargetUUID(context, targetName);
@@ -432,6 +517,9 @@ public class EconomyCommands {
         ServerPlayerEntity player = context.getSource().getPlayerOrThrow();
         double amountDouble = DoubleArgumentType.getDouble(context, "amount");
         BigDecimal amount = BigDecimal.valueOf(amountDouble);
+        if (!checkAmount(context, amount)) {
+            return 0;
+        }
 
         if (EconomyManager.getInstance().removeBalance(player.getUuid(), amount)) {
             // Create a paper item with NBT data
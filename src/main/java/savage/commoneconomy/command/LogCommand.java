@@ -2,6 +2,7 @@ package savage.commoneconomy.command;
 
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.LongArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import net.minecraft.server.command.CommandManager;
@@ -28,12 +29,21 @@ public class LogCommand {
                         .then(CommandManager.argument("time", IntegerArgumentType.integer(1))
                                 .then(CommandManager.argument("unit", StringArgumentType.string())
                                         .suggests((context, builder) -> net.minecraft.command.CommandSource.suggestMatching(new String[]{"s", "m", "h", "d"}, builder))
-                                        .executes(context -> executeLogSearch(context, 1))
-                                        .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
-                                                .executes(context -> executeLogSearch(context, IntegerArgumentType.getInteger(context, "page"))))))));
+                                        .executes(context -> executeLogSearch(context, Long.MAX_VALUE, Long.MAX_VALUE, true))
+                                        // Page buttons carry the (timestamp, id) cursor of the entry they continue from
+                                        .then(CommandManager.literal("before")
+                                                .then(CommandManager.argument("cursorTime", LongArgumentType.longArg())
+                                                        .then(CommandManager.argument("cursorId", LongArgumentType.longArg())
+                                                                .executes(context -> executeLogSearch(context,
+                                                                        LongArgumentType.getLong(context, "cursorTime"), LongArgumentType.getLong(context, "cursorId"), true)))))
+                                        .then(CommandManager.literal("after")
+                                                .then(CommandManager.argument("cursorTime", LongArgumentType.longArg())
+                                                        .then(CommandManager.argument("cursorId", LongArgumentType.longArg())
+                                                                .executes(context -> executeLogSearch(context,
+                                                                        LongArgumentType.getLong(context, "cursorTime"), LongArgumentType.getLong(context, "cursorId"), false)))))))));
     }
 
-    private static int executeLogSearch(CommandContext<ServerCommandSource> context, int page) {
+    private static int executeLogSearch(CommandContext<ServerCommandSource> context, long cursorTime, long cursorId, boolean older) {
         String target = StringArgumentType.getString(context, "target");
         int time = IntegerArgumentType.getInteger(context, "time");
         String unit = StringArgumentType.getString(context, "unit");
@@ -63,23 +73,17 @@ public class LogCommand {
 
         // Run search asynchronously to avoid lag
         new Thread(() -> {
-            List<TransactionLogger.LogEntry> results = TransactionLogger.searchLogs(target, cutoff);
+            TransactionLogger.LogPage logPage = TransactionLogger.searchLogPage(target, cutoff, cursorTime, cursorId, older, RESULTS_PER_PAGE);
+            List<TransactionLogger.LogEntry> results = logPage.entries;
             
             if (results.isEmpty()) {
                 context.getSource().sendFeedback(() -> Text.literal("No transactions found."), false);
                 return;
             }
 
-            int totalPages = (int) Math.ceil((double) results.size() / RESULTS_PER_PAGE);
-            int currentPage = Math.min(page, totalPages);
+            context.getSource().sendFeedback(() -> Text.literal("--- Transactions for " + target + " in the last " + time + unit + " (newest first) ---"), false);
             
-            context.getSource().sendFeedback(() -> Text.literal("--- Found " + results.size() + " transactions (Page " + currentPage + "/" + totalPages + ") ---"), false);
-            
-            int startIndex = (currentPage - 1) * RESULTS_PER_PAGE;
-            int endIndex = Math.min(startIndex + RESULTS_PER_PAGE, results.size());
-            
-            for (int i = startIndex; i < endIndex; i++) {
-                TransactionLogger.LogEntry entry = results.get(i);
+            for (TransactionLogger.LogEntry entry : results) {
                 
                 // Format: [Time] [TYPE] Source -> Target: $Amount (Details)
                 // Colors: Time=Gray, Type=Color, Source/Target=White, Amount=Yellow, Details=Gray Italic
@@ -111,21 +115,23 @@ public class LogCommand {
             
             // Navigation buttons
             net.minecraft.text.MutableText navText = Text.empty();
-            if (currentPage > 1) {
+            TransactionLogger.LogEntry first = results.get(0);
+            TransactionLogger.LogEntry last = results.get(results.size() - 1);
+            if (logPage.hasNewer) {
                 navText.append(Text.literal("[< Previous] ")
                         .formatted(net.minecraft.util.Formatting.AQUA, net.minecraft.util.Formatting.BOLD)
                         .styled(style -> style.withClickEvent(new net.minecraft.text.ClickEvent.RunCommand(
-                                "/ecolog " + target + " " + time + " " + unit + " " + (currentPage - 1)))));
+                                "/ecolog " + target + " " + time + " " + unit + " after " + first.timestampMillis + " " + first.id))));
             }
             
-            if (currentPage < totalPages) {
+            if (logPage.hasOlder) {
                 navText.append(Text.literal("[Next >]")
                         .formatted(net.minecraft.util.Formatting.AQUA, net.minecraft.util.Formatting.BOLD)
                         .styled(style -> style.withClickEvent(new net.minecraft.text.ClickEvent.RunCommand(
-                                "/ecolog " + target + " " + time + " " + unit + " " + (currentPage + 1)))));
+                                "/ecolog " + target + " " + time + " " + unit + " before " + last.timestampMillis + " " + last.id))));
             }
             
-            if (totalPages > 1) {
+            if (logPage.hasNewer || logPage.hasOlder) {
                 context.getSource().sendFeedback(() -> navText, false);
             }
 
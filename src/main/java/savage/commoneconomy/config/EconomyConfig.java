@@ -22,8 +22,37 @@ public class EconomyConfig {
         public int poolSize = 10;
         public long connectionTimeout = 30000;
         public long idleTimeout = 600000;
+        public String uuidFormat = "STRING"; // STRING or BINARY (BINARY(16) on MySQL, uuid on PostgreSQL, BLOB on SQLite)
+        public WriteBehindConfig writeBehind = new WriteBehindConfig();
+    }
+
+    public static class WriteBehindConfig {
+        public boolean enabled = false; // Only safe when a single server writes to the database
+        public long maxStalenessMs = 1000; // Flush at least this often
+        public int maxPendingOps = 500; // ...or as soon as this many updates are queued
     }
     
+    public CacheConfig cache = new CacheConfig();
+
+    public static class CacheConfig {
+        public long accountMaxSize = 10000; // Online players are pinned and don't count towards this
+        public long accountTtlSeconds = 600;
+        public long uuidMaxSize = 10000;
+        public long uuidTtlSeconds = 3600;
+        public long negativeTtlSeconds = 30; // How long a "not found" lookup is remembered
+        public long nameResyncSeconds = 300; // Redis networks only: how often tab completion re-reads names from storage
+        public long leaderboardResyncSeconds = 60; // MySQL, PostgreSQL and Redis storage: how often /baltop re-reads every balance; 0 = never
+        public RedisCacheConfig redis = new RedisCacheConfig();
+    }
+
+    // Account cache in Redis shared by all servers; connects with the host, port and password of the redis section
+    public static class RedisCacheConfig {
+        public boolean enabled = false;
+        public String keyPrefix = "savs-economy:account:";
+        public long ttlSeconds = 300; // Bounds how long a copy can outlive a write that didn't reach Redis
+        public long timeoutMs = 250; // Slower answers fall back to storage
+    }
+
     public RedisConfig redis = new RedisConfig();
     
     public static class RedisConfig {
@@ -31,8 +60,20 @@ public class EconomyConfig {
         public String host = "localhost";
         public int port = 6379;
         public String password = "";
+        public String mode = "PUBSUB"; // PUBSUB, or STREAMS to keep updates in a stream that servers catch up on after a restart or outage
         public String channel = "savs-economy-updates";
+        public String streamKey = "savs-economy-stream"; // STREAMS mode only
+        public long streamRetentionMinutes = 60; // STREAMS mode: entries older than this are trimmed
+        public int streamBatchSize = 500; // STREAMS mode: entries read per round trip while catching up
         public boolean debugLogging = false; 
+        public String nodeId = ""; // Tags this server's messages so it can skip its own; a random id is used when empty
+        public long publishIntervalMs = 50; // Updates are sent in pipelined batches this often; repeat updates to one account in between are merged
+        public int publishQueueSize = 10000; // Unsent messages beyond this are dropped
+        public long tickBudgetMicros = 2000; // Time per server tick spent applying received messages; the rest waits for the next tick
+        public long connectTimeoutMs = 5000; // Longest startup waits for Redis; after that it keeps connecting in the background
+        public long reconnectMinDelayMs = 500; // Reconnect attempts back off, with jitter, between these two delays
+        public long reconnectMaxDelayMs = 30000;
+        public long logRetentionDays = 30; // REDIS storage: transaction log entries older than this are trimmed, 0 keeps them all
     }
 
     public NotificationMode apiNotificationMode = NotificationMode.ACTION_BAR;
@@ -48,6 +89,7 @@ public class EconomyConfig {
         JSON,
         SQLITE,
         MYSQL,
-        POSTGRESQL
+        POSTGRESQL,
+        REDIS
     }
 }
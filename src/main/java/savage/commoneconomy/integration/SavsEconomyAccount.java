@@ -9,7 +9,7 @@ import eu.pb4.common.economy.api.EconomyCurrency;
 import eu.pb4.common.economy.api.EconomyProvider;
 import eu.pb4.common.economy.api.EconomyTransaction;
 import savage.commoneconomy.EconomyManager;
-import java.math.BigDecimal;
+import savage.commoneconomy.util.Money;
 
 public class SavsEconomyAccount implements EconomyAccount {
     private final GameProfile profile;
@@ -49,7 +49,7 @@ public class SavsEconomyAccount implements EconomyAccount {
 
     @Override
     public void setBalance(long value) {
-        EconomyManager.getInstance().setBalance(profile.id(), BigDecimal.valueOf(value));
+        EconomyManager.getInstance().setBalanceMinor(profile.id(), Money.fromUnits(value), true);
         sendFeedback("§e[Economy] Balance set to " + currency.formatValue(value, true));
     }
 
@@ -65,7 +65,7 @@ public class SavsEconomyAccount implements EconomyAccount {
 
     public EconomyTransaction decreaseBalance(long value) {
         long current = balance();
-        if (EconomyManager.getInstance().removeBalance(profile.id(), BigDecimal.valueOf(value))) {
+        if (EconomyManager.getInstance().removeBalanceMinor(profile.id(), Money.fromUnits(value), true)) {
             sendFeedback("§e[Economy] §c-" + currency.formatValue(value, true));
             return new EconomyTransaction.Simple(true, Text.of("Success"), current - value, value, current, this);
         }
@@ -75,7 +75,7 @@ public class SavsEconomyAccount implements EconomyAccount {
     @Override
     public EconomyTransaction increaseBalance(long value) {
         long current = balance();
-        if (EconomyManager.getInstance().addBalance(profile.id(), BigDecimal.valueOf(value))) {
+        if (EconomyManager.getInstance().addBalanceMinor(profile.id(), Money.fromUnits(value), true)) {
             sendFeedback("§e[Economy] §a+" + currency.formatValue(value, true));
             return new EconomyTransaction.Simple(true, Text.of("Success"), current + value, value, current, this);
         }
@@ -105,6 +105,7 @@ public class SavsEconomyAccount implements EconomyAccount {
 
     @Override
     public long balance() {
-        return EconomyManager.getInstance().getBalance(profile.id()).longValue();
+        // The API counts whole units
+        return Money.toUnits(EconomyManager.getInstance().getBalanceMinor(profile.id()));
     }
 }
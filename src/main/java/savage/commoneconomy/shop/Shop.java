@@ -15,6 +15,7 @@ public class Shop {
     private ShopType type;
     private ItemStack item;
     private BigDecimal price;
+    private long priceMinor;
     private boolean buying;
     private int stock;
 
@@ -27,7 +28,7 @@ public class Shop {
         this.ownerName = ownerName;
         this.type = type;
         this.item = item.copy();
-        this.price = price;
+        setPrice(price);
         this.buying = buying;
         this.stock = stock;
     }
@@ -40,12 +41,16 @@ public class Shop {
     public ShopType getType() { return type; }
     public ItemStack getItem() { return item.copy(); }
     public BigDecimal getPrice() { return price; }
+    public long getPriceMinor() { return priceMinor; }
     public boolean isBuying() { return buying; }
     public int getStock() { return stock; }
 
     public void setOwnerName(String ownerName) { this.ownerName = ownerName; }
     public void setType(ShopType type) { this.type = type; }
-    public void setPrice(BigDecimal price) { this.price = price; }
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+        this.priceMinor = savage.commoneconomy.util.Money.fromBigDecimal(price);
+    }
     public void setStock(int stock) { this.stock = stock; }
 
     public boolean canSell(int amount) {
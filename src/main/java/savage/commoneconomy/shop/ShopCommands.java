@@ -54,6 +54,10 @@ public class ShopCommands {
         ServerPlayerEntity player = context.getSource().getPlayerOrThrow();
         double priceDouble = DoubleArgumentType.getDouble(context, "price");
         BigDecimal price = BigDecimal.valueOf(priceDouble);
+        if (!savage.commoneconomy.util.Money.isWhole(price)) {
+            context.getSource().sendError(Text.literal("Prices can have at most " + savage.commoneconomy.util.Money.SCALE + " decimal places."));
+            return 0;
+        }
 
         ItemStack heldItem = player.getMainHandStack();
         if (heldItem.isEmpty()) {
@@ -159,6 +163,10 @@ public class ShopCommands {
         ServerPlayerEntity player = context.getSource().getPlayerOrThrow();
         double priceDouble = DoubleArgumentType.getDouble(context, "price");
         BigDecimal price = BigDecimal.valueOf(priceDouble);
+        if (!savage.commoneconomy.util.Money.isWhole(price)) {
+            context.getSource().sendError(Text.literal("Prices can have at most " + savage.commoneconomy.util.Money.SCALE + " decimal places."));
+            return 0;
+        }
 
         HitResult hitResult = player.raycast(5.0, 0.0f, false);
         if (hitResult.getType() != HitResult.Type.BLOCK) {
@@ -11,8 +11,7 @@ import net.minecraft.util.Formatting;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import savage.commoneconomy.EconomyManager;
-
-import java.math.BigDecimal;
+import savage.commoneconomy.util.Money;
 
 public class ShopTransactionHandler {
     
@@ -25,10 +24,13 @@ public class ShopTransactionHandler {
         }
         
         // Calculate total price
-        BigDecimal totalPrice = shop.getPrice().multiply(BigDecimal.valueOf(amount));
+        long totalPrice = priceFor(player, shop, amount);
+        if (totalPrice < 0) {
+            return;
+        }
         
         // Check if player has enough money
-        if (EconomyManager.getInstance().getBalance(player.getUuid()).compareTo(totalPrice) < 0) {
+        if (EconomyManager.getInstance().getBalanceMinor(player.getUuid()) < totalPrice) {
             player.sendMessage(Text.literal("§cYou don't have enough money! Need " + 
                     EconomyManager.getInstance().format(totalPrice)), false);
             return;
@@ -52,15 +54,20 @@ public class ShopTransactionHandler {
         }
         
         // Transfer money
-        EconomyManager.getInstance().removeBalance(player.getUuid(), totalPrice);
-        if (!shop.isAdmin()) {
-            EconomyManager.getInstance().addBalance(shop.getOwnerId(), totalPrice);
-            
-
+        boolean paid = shop.isAdmin()
+                ? EconomyManager.getInstance().removeBalanceMinor(player.getUuid(), totalPrice, true)
+                : EconomyManager.getInstance().transferMinor(player.getUuid(), shop.getOwnerId(), totalPrice, true);
+        if (!paid) {
+            // Put the items back so nothing is lost
+            if (!shop.isAdmin()) {
+                addItemsToInventory(chest, shop.getItem(), amount);
+                shop.addStock(amount);
+            }
+            player.sendMessage(Text.literal("§cYou don't have enough money! Need " + 
+                    EconomyManager.getInstance().format(totalPrice)), false);
+            return;
         }
         
-
-        
         // Give items to player
         ItemStack itemToGive = shop.getItem().copy();
         itemToGive.setCount(amount);
@@ -79,7 +86,7 @@ public class ShopTransactionHandler {
                 " for " + EconomyManager.getInstance().format(totalPrice)), false);
         
         String targetName = shop.isAdmin() ? "Admin Shop" : shop.getOwnerId().toString();
-        savage.commoneconomy.util.TransactionLogger.log("SHOP_BUY", player.getName().getString(), targetName, totalPrice, "Bought " + amount + "x " + shop.getItem().getName().getString());
+        savage.commoneconomy.util.TransactionLogger.log("SHOP_BUY", player.getName().getString(), targetName, Money.toBigDecimal(totalPrice), "Bought " + amount + "x " + shop.getItem().getName().getString());
     }
     
     public static void handleSellTransaction(World world, ServerPlayerEntity player, Shop shop, int amount) {
@@ -92,11 +99,14 @@ public class ShopTransactionHandler {
         }
         
         // Calculate total price
-        BigDecimal totalPrice = shop.getPrice().multiply(BigDecimal.valueOf(amount));
+        long totalPrice = priceFor(player, shop, amount);
+        if (totalPrice < 0) {
+            return;
+        }
         
         // Check if shop owner has enough money (unless admin shop)
         if (!shop.isAdmin()) {
-            if (EconomyManager.getInstance().getBalance(shop.getOwnerId()).compareTo(totalPrice) < 0) {
+            if (EconomyManager.getInstance().getBalanceMinor(shop.getOwnerId()) < totalPrice) {
                 player.sendMessage(Text.literal("§cShop owner doesn't have enough money!"), false);
                 return;
             }
@@ -129,12 +139,21 @@ public class ShopTransactionHandler {
         }
         
         // Transfer money
-        if (!shop.isAdmin()) {
-            EconomyManager.getInstance().removeBalance(shop.getOwnerId(), totalPrice);
+        boolean paid = shop.isAdmin()
+                ? EconomyManager.getInstance().addBalanceMinor(player.getUuid(), totalPrice, true)
+                : EconomyManager.getInstance().transferMinor(shop.getOwnerId(), player.getUuid(), totalPrice, true);
+        if (!paid) {
+            // Give the items back so nothing is lost
+            if (!shop.isAdmin()) {
+                removeItemsFromInventory(chest, shop.getItem(), amount);
+                shop.removeStock(amount);
+            }
+            ItemStack refund = shop.getItem().copy();
+            refund.setCount(amount);
+            player.getInventory().offerOrDrop(refund);
+            player.sendMessage(Text.literal("§cShop owner doesn't have enough money!"), false);
+            return;
         }
-        EconomyManager.getInstance().addBalance(player.getUuid(), totalPrice);
-        
-
         
         // Update sign
         BlockPos signPos = ShopSignHelper.findSignForChest(world, shop.getChestLocation());
@@ -149,7 +168,22 @@ public class ShopTransactionHandler {
                 " for " + EconomyManager.getInstance().format(totalPrice)), false);
 
         String sourceName = shop.isAdmin() ? "Admin Shop" : shop.getOwnerId().toString();
-        savage.commoneconomy.util.TransactionLogger.log("SHOP_SELL", sourceName, player.getName().getString(), totalPrice, "Sold " + amount + "x " + shop.getItem().getName().getString());
+        savage.commoneconomy.util.TransactionLogger.log("SHOP_SELL", sourceName, player.getName().getString(), Money.toBigDecimal(totalPrice), "Sold " + amount + "x " + shop.getItem().getName().getString());
+    }
+    
+    // Price of amount items in minor units, or -1 (after telling the player) if it doesn't fit in a long
+    private static long priceFor(ServerPlayerEntity player, Shop shop, int amount) {
+        if (shop.getPriceMinor() == 0 && shop.getPrice().signum() > 0) {
+            // Saved before sub-cent prices were refused; it would round to free
+            player.sendMessage(Text.literal("§cThis shop's price is below the smallest amount, the owner has to set a new one."), false);
+            return -1;
+        }
+        try {
+            return Money.multiply(shop.getPriceMinor(), amount);
+        } catch (ArithmeticException e) {
+            player.sendMessage(Text.literal("§cThat price is too large!"), false);
+            return -1;
+        }
     }
     
     private static int countItemInInventory(ServerPlayerEntity player, ItemStack template) {
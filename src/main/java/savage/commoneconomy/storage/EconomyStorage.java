@@ -3,29 +3,58 @@ package savage.commoneconomy.storage;
 import java.math.BigDecimal;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import savage.commoneconomy.EconomyManager.AccountData;
+import savage.commoneconomy.EconomyManager.TransferResult;
 
 public interface EconomyStorage {
     void load();
     void save();
     
-    BigDecimal getBalance(UUID uuid);
-    void setBalance(UUID uuid, BigDecimal amount);
-    boolean setBalance(UUID uuid, BigDecimal amount, long expectedVersion);
+    // Balances and amounts are in minor units, see savage.commoneconomy.util.Money
+    long getBalance(UUID uuid);
+    void setBalance(UUID uuid, long amount);
+    boolean setBalance(UUID uuid, long amount, long expectedVersion);
+    // Atomically adds delta (may be negative) unless the result would drop below zero.
+    // Returns the updated account, or null if the account is missing or has insufficient funds.
+    AccountData applyDelta(UUID uuid, long delta);
+    // Moves amount between two accounts as one unit. Returns null (and changes nothing) on insufficient funds or a missing account.
+    TransferResult transfer(UUID from, UUID to, long amount);
+    // Adds each delta unconditionally in one batch (used by the write-behind buffer). Returns false if nothing was written.
+    boolean applyDeltas(Map<UUID, Long> deltas);
     
     boolean hasAccount(UUID uuid);
     AccountData getAccount(UUID uuid);
+    // Loads several accounts at once; missing ones are left out of the result
+    default Map<UUID, AccountData> getAccounts(Collection<UUID> uuids) {
+        Map<UUID, AccountData> accounts = new java.util.HashMap<>();
+        for (UUID uuid : uuids) {
+            AccountData data = getAccount(uuid);
+            if (data != null) {
+                accounts.put(uuid, data);
+            }
+        }
+        return accounts;
+    }
     void createAccount(UUID uuid, String name);
     
     UUID getUUID(String name);
     Collection<String> getOfflinePlayerNames();
     List<AccountData> getTopAccounts(int limit);
+    // Streams every account; used to build in-memory indexes at startup
+    void forEachAccount(java.util.function.BiConsumer<UUID, AccountData> action);
     
     void logTransaction(long timestamp, String source, String target, BigDecimal amount, String type, String details);
+    // Writes a batch of log entries in one go. Returns false if they weren't stored.
+    boolean logTransactions(List<savage.commoneconomy.util.TransactionLogger.LogEntry> entries);
     
     List<savage.commoneconomy.util.TransactionLogger.LogEntry> searchLogs(String target, long cutoffTimestamp);
+
+    // Keyset page of log entries before (older) or after a (timestamp, id) cursor, nearest to the cursor first
+    List<savage.commoneconomy.util.TransactionLogger.LogEntry> searchLogs(String target, long cutoffTimestamp,
+                                                                        long cursorTimestamp, long cursorId, boolean older, int limit);
     
     void deleteAccount(UUID uuid);
 }
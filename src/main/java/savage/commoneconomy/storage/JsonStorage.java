@@ -2,37 +2,79 @@ package savage.commoneconomy.storage;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import net.fabricmc.loader.api.FabricLoader;
 import savage.commoneconomy.EconomyManager;
 import savage.commoneconomy.EconomyManager.AccountData;
+import savage.commoneconomy.EconomyManager.TransferResult;
+import savage.commoneconomy.SavsCommonEconomy;
+import savage.commoneconomy.util.Money;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+/**
+ * JSON snapshot plus an append-only journal, fsynced in batches and compacted in the background
+ */
 public class JsonStorage implements EconomyStorage {
-    private final Map<UUID, AccountData> accounts = new HashMap<>();
+    // Journal records written before a new snapshot is taken
+    private static final int COMPACT_AFTER_RECORDS = 10000;
+    private static final int MAX_SYNC_BATCH = 1024;
+
+    // Values are replaced through per-key atomic updates, never mutated; only multi-account changes need checkpointLock
+    private final Map<UUID, AccountData> accounts = new ConcurrentHashMap<>();
     private final File balanceFile;
+    private final Path journalPath;
+    private final Path rotatedJournalPath;
     private final Gson gson;
+    private final Gson journalGson = new Gson();
     private final EconomyManager manager;
 
+    private final BlockingQueue<Object> journalQueue = new LinkedBlockingQueue<>();
+    private Thread journalThread;
+    private volatile boolean journalRunning;
+    private FileOutputStream journalStream;
+    private Writer journalWriter;
+    private final AtomicInteger journalRecords = new AtomicInteger();
+    // Multi-account changes hold the read lock and snapshots the write lock, so a snapshot never sees half a transfer
+    private final java.util.concurrent.locks.ReentrantReadWriteLock checkpointLock = new java.util.concurrent.locks.ReentrantReadWriteLock();
+
     public JsonStorage(EconomyManager manager) {
         this.manager = manager;
         Path configDir = FabricLoader.getInstance().getConfigDir().resolve("savs-common-economy");
         configDir.toFile().mkdirs();
         this.balanceFile = configDir.resolve("balances.json").toFile();
+        this.journalPath = configDir.resolve("balances.journal");
+        this.rotatedJournalPath = configDir.resolve("balances.journal.old");
         this.gson = new GsonBuilder().setPrettyPrinting().create();
     }
 
     @Override
     public void load() {
+        accounts.clear();
+        journalQueue.clear();
         if (balanceFile.exists()) {
             try (FileReader reader = new FileReader(balanceFile)) {
                 Type type = new TypeToken<HashMap<UUID, AccountData>>() {}.getType();
@@ -44,46 +86,355 @@ public class JsonStorage implements EconomyStorage {
                 e.printStackTrace();
             }
         }
+
+        // A rotated journal only exists if the server stopped mid-compaction; it is older than the live one
+        replayJournal(rotatedJournalPath);
+        replayJournal(journalPath);
+
+        // Start from a fresh snapshot and an empty journal
+        try {
+            writeSnapshot(new HashMap<>(accounts));
+            Files.deleteIfExists(rotatedJournalPath);
+            Files.deleteIfExists(journalPath);
+            openJournal();
+        } catch (IOException e) {
+            SavsCommonEconomy.LOGGER.error("Failed to prepare balance journal", e);
+        }
+        journalRecords.set(0);
+
+        journalRunning = true;
+        journalThread = new Thread(this::runJournalWriter, "Savs-Economy-Journal");
+        journalThread.setDaemon(true);
+        journalThread.start();
     }
 
     @Override
     public void save() {
-        try (FileWriter writer = new FileWriter(balanceFile)) {
-            gson.toJson(accounts, writer);
+        if (!journalRunning) {
+            return;
+        }
+
+        // Final checkpoint, then stop the writer once everything queued before it is on disk
+        Checkpoint checkpoint = new Checkpoint();
+        journalQueue.add(checkpoint);
+        checkpoint.done.completeOnTimeout(null, 30, TimeUnit.SECONDS).join();
+
+        journalRunning = false;
+        try {
+            journalThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeJournal();
+    }
+
+    private void runJournalWriter() {
+        List<Object> batch = new ArrayList<>();
+        while (journalRunning || !journalQueue.isEmpty()) {
+            try {
+                Object first = journalQueue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                journalQueue.drainTo(batch, MAX_SYNC_BATCH - 1);
+
+                for (Object entry : batch) {
+                    if (entry instanceof List<?> records) {
+                        // Related records share one line so a torn write can't split them
+                        journalWriter.write(journalGson.toJson(records.size() == 1 ? records.get(0) : records));
+                        journalWriter.write('\n');
+                    } else if (entry instanceof Checkpoint checkpoint) {
+                        writeCheckpoint(checkpoint);
+                    }
+                }
+                // One fsync for the whole batch
+                syncJournal();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                SavsCommonEconomy.LOGGER.error("Failed to write balance journal", e);
+                for (Object entry : batch) {
+                    if (entry instanceof Checkpoint checkpoint) {
+                        checkpoint.done.complete(null);
+                    }
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeCheckpoint(Checkpoint checkpoint) throws IOException {
+        try {
+            syncJournal();
+            closeJournal();
+
+            // Every record queued before the checkpoint was applied to the map before it was queued,
+            // so a copy taken now covers the whole journal written so far
+            Map<UUID, AccountData> snapshot;
+            checkpointLock.writeLock().lock();
+            try {
+                snapshot = new HashMap<>(accounts);
+            } finally {
+                checkpointLock.writeLock().unlock();
+            }
+            if (Files.exists(rotatedJournalPath)) {
+                // A previous compaction failed; keep its records in front of ours
+                Files.write(rotatedJournalPath, Files.readAllBytes(journalPath), StandardOpenOption.APPEND);
+                Files.delete(journalPath);
+            } else {
+                Files.move(journalPath, rotatedJournalPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            openJournal();
+
+            writeSnapshot(snapshot);
+            Files.deleteIfExists(rotatedJournalPath);
+        } finally {
+            checkpoint.done.complete(null);
+        }
+    }
+
+    private void writeSnapshot(Map<UUID, AccountData> snapshot) throws IOException {
+        Path target = balanceFile.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp.toFile());
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            gson.toJson(snapshot, writer);
+            writer.flush();
+            out.getChannel().force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void replayJournal(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JournalRecord[] records;
+                try {
+                    records = line.startsWith("[")
+                            ? journalGson.fromJson(line, JournalRecord[].class)
+                            : new JournalRecord[]{journalGson.fromJson(line, JournalRecord.class)};
+                } catch (JsonParseException e) {
+                    // Torn write from a crash, nothing after it was synced
+                    SavsCommonEconomy.LOGGER.warn("Ignoring truncated balance journal entry in " + path.getFileName());
+                    break;
+                }
+                for (JournalRecord record : records) {
+                    if (record != null && record.uuid != null) {
+                        replay(record);
+                    }
+                }
+            }
         } catch (IOException e) {
-            e.printStackTrace();
+            SavsCommonEconomy.LOGGER.error("Failed to replay balance journal " + path.getFileName(), e);
+        }
+    }
+
+    // Records can be queued slightly out of order under concurrency, so the highest version wins
+    private void replay(JournalRecord record) {
+        AccountData current = accounts.get(record.uuid);
+        if (record.deleted) {
+            if (current != null && current.version < record.version) {
+                accounts.remove(record.uuid);
+            }
+        } else if (current == null || current.version < record.version) {
+            accounts.put(record.uuid, new AccountData(record.name, record.balance, record.version));
+        }
+    }
+
+    private void openJournal() throws IOException {
+        journalStream = new FileOutputStream(journalPath.toFile(), true);
+        journalWriter = new BufferedWriter(new OutputStreamWriter(journalStream, StandardCharsets.UTF_8));
+    }
+
+    private void syncJournal() throws IOException {
+        if (journalWriter != null) {
+            journalWriter.flush();
+            journalStream.getChannel().force(false);
+        }
+    }
+
+    private void closeJournal() {
+        if (journalWriter != null) {
+            try {
+                journalWriter.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            journalWriter = null;
+            journalStream = null;
+        }
+    }
+
+    private void journal(UUID uuid, AccountData data) {
+        enqueue(List.of(record(uuid, data)));
+    }
+
+    private JournalRecord record(UUID uuid, AccountData data) {
+        return new JournalRecord(uuid, data.name, data.balance, data.version, false);
+    }
+
+    private void enqueue(List<JournalRecord> records) {
+        journalQueue.add(records);
+        if (journalRecords.addAndGet(records.size()) >= COMPACT_AFTER_RECORDS) {
+            journalRecords.set(0);
+            journalQueue.add(new Checkpoint());
         }
     }
 
     @Override
-    public BigDecimal getBalance(UUID uuid) {
-        return accounts.containsKey(uuid) ? accounts.get(uuid).balance : manager.getConfig().defaultBalance;
+    public long getBalance(UUID uuid) {
+        AccountData data = accounts.get(uuid);
+        return data != null ? data.balance : manager.getDefaultBalanceMinor();
     }
 
     @Override
-    public void setBalance(UUID uuid, BigDecimal amount) {
-        AccountData data = accounts.computeIfAbsent(uuid, k -> new AccountData("Unknown", manager.getConfig().defaultBalance));
-        data.balance = amount;
-        data.version++;
-        save();
+    public void setBalance(UUID uuid, long amount) {
+        AccountData data = accounts.compute(uuid, (k, current) -> current != null
+                ? new AccountData(current.name, amount, current.version + 1)
+                : new AccountData("Unknown", amount, 1));
+        journal(uuid, data);
     }
 
     @Override
-    public synchronized boolean setBalance(UUID uuid, BigDecimal amount, long expectedVersion) {
-        AccountData data = accounts.get(uuid);
-        if (data == null) {
-            // Account doesn't exist, create it
-            data = new AccountData("Unknown", manager.getConfig().defaultBalance);
-            accounts.put(uuid, data);
-        }
-        
-        if (data.version != expectedVersion) {
-            return false; // Optimistic lock failure
-        }
-        
-        data.balance = amount;
-        data.version++;
-        save();
+    public boolean setBalance(UUID uuid, long amount, long expectedVersion) {
+        boolean[] updated = new boolean[1];
+        AccountData data = accounts.compute(uuid, (k, current) -> {
+            // Missing accounts start at version 0 with the default balance
+            long version = current != null ? current.version : 0;
+            if (version != expectedVersion) {
+                return current; // Optimistic lock failure
+            }
+            updated[0] = true;
+            return new AccountData(current != null ? current.name : "Unknown", amount, version + 1);
+        });
+
+        if (updated[0]) {
+            journal(uuid, data);
+        }
+        return updated[0];
+    }
+
+    @Override
+    public AccountData applyDelta(UUID uuid, long delta) {
+        boolean[] updated = new boolean[1];
+        // Missing accounts are left alone, like the SQL and Redis backends do
+        AccountData data = accounts.computeIfPresent(uuid, (k, current) -> {
+            long balance = Money.add(current.balance, delta);
+            if (balance < 0) {
+                return current; // Insufficient funds
+            }
+            updated[0] = true;
+            return new AccountData(current.name, balance, current.version + 1);
+        });
+
+        if (!updated[0]) {
+            return null;
+        }
+        journal(uuid, data);
+        return data;
+    }
+
+    @Override
+    public TransferResult transfer(UUID from, UUID to, long amount) {
+        if (from.equals(to)) {
+            AccountData data = accounts.get(from);
+            return data != null && data.balance >= amount ? new TransferResult(data, data) : null;
+        }
+
+        checkpointLock.readLock().lock();
+        try {
+            return transferLocked(from, to, amount);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    private TransferResult transferLocked(UUID from, UUID to, long amount) {
+        // Refuse up front what the credit would refuse, so the debit rarely has to be undone
+        AccountData existing = accounts.get(to);
+        if (existing == null) {
+            return null;
+        }
+        Money.add(existing.balance, amount); // Throws if the credit would overflow
+
+        // Debit first; the credit only fails if the target changed in between
+        boolean[] debited = new boolean[1];
+        AccountData source = accounts.computeIfPresent(from, (k, current) -> {
+            if (current.balance < amount) {
+                return current;
+            }
+            debited[0] = true;
+            return new AccountData(current.name, Money.subtract(current.balance, amount), current.version + 1);
+        });
+        if (!debited[0]) {
+            return null;
+        }
+
+        AccountData target;
+        try {
+            target = accounts.computeIfPresent(to,
+                    (k, current) -> new AccountData(current.name, Money.add(current.balance, amount), current.version + 1));
+        } catch (ArithmeticException e) {
+            refund(from, amount);
+            throw e;
+        }
+        if (target == null) {
+            // The target was deleted in between
+            refund(from, amount);
+            return null;
+        }
+
+        enqueue(List.of(record(from, source), record(to, target)));
+        return new TransferResult(source, target);
+    }
+
+    // Puts a debit back; journaled, since another write may already have journaled the debited balance
+    private void refund(UUID uuid, long amount) {
+        AccountData restored = accounts.computeIfPresent(uuid,
+                (k, current) -> new AccountData(current.name, Money.add(current.balance, amount), current.version + 1));
+        if (restored != null) {
+            journal(uuid, restored);
+        }
+    }
+
+    @Override
+    public boolean applyDeltas(Map<UUID, Long> deltas) {
+        checkpointLock.readLock().lock();
+        try {
+            return applyDeltasLocked(deltas);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    private boolean applyDeltasLocked(Map<UUID, Long> deltas) {
+        List<JournalRecord> records = new ArrayList<>(deltas.size());
+        for (Map.Entry<UUID, Long> entry : deltas.entrySet()) {
+            AccountData data;
+            try {
+                data = accounts.computeIfPresent(entry.getKey(),
+                        (k, current) -> new AccountData(current.name, Money.add(current.balance, entry.getValue()), current.version + 1));
+            } catch (ArithmeticException e) {
+                SavsCommonEconomy.LOGGER.error("Dropping balance delta that would overflow: " + entry.getKey() + " " + Money.toPlainString(entry.getValue()));
+                continue;
+            }
+            if (data != null) {
+                records.add(record(entry.getKey(), data));
+            }
+        }
+        if (!records.isEmpty()) {
+            enqueue(records);
+        }
         return true;
     }
 
@@ -99,16 +450,22 @@ public class JsonStorage implements EconomyStorage {
 
     @Override
     public void createAccount(UUID uuid, String name) {
-        if (!accounts.containsKey(uuid)) {
-            accounts.put(uuid, new AccountData(name, manager.getConfig().defaultBalance));
-            save();
-        } else {
+        boolean[] changed = new boolean[1];
+        AccountData data = accounts.compute(uuid, (k, current) -> {
+            if (current == null) {
+                changed[0] = true;
+                return new AccountData(name, manager.getDefaultBalanceMinor());
+            }
             // Update name if changed
-            AccountData data = accounts.get(uuid);
-            if (!data.name.equals(name)) {
-                data.name = name;
-                save();
+            if (!current.name.equals(name)) {
+                changed[0] = true;
+                return new AccountData(name, current.balance, current.version + 1);
             }
+            return current;
+        });
+
+        if (changed[0]) {
+            journal(uuid, data);
         }
     }
 
@@ -131,15 +488,25 @@ public class JsonStorage implements EconomyStorage {
         return names;
     }
 
+    @Override
+    public void forEachAccount(java.util.function.BiConsumer<UUID, AccountData> action) {
+        accounts.forEach(action);
+    }
+
     @Override
     public void logTransaction(long timestamp, String source, String target, BigDecimal amount, String type, String details) {
         // JsonStorage doesn't handle logging internally, it relies on TransactionLogger's file logging
     }
 
+    @Override
+    public boolean logTransactions(List<savage.commoneconomy.util.TransactionLogger.LogEntry> entries) {
+        return false; // Relies on TransactionLogger's file logging
+    }
+
     @Override
     public List<AccountData> getTopAccounts(int limit) {
         return accounts.values().stream()
-                .sorted((a, b) -> b.balance.compareTo(a.balance))
+                .sorted((a, b) -> Long.compare(b.balance, a.balance))
                 .limit(limit)
                 .collect(Collectors.toList());
     }
@@ -148,8 +515,38 @@ public class JsonStorage implements EconomyStorage {
         return Collections.emptyList(); // JsonStorage relies on file logging
     }
     @Override
+    public List<savage.commoneconomy.util.TransactionLogger.LogEntry> searchLogs(String target, long cutoffTimestamp,
+                                                                               long cursorTimestamp, long cursorId, boolean older, int limit) {
+        return Collections.emptyList(); // JsonStorage relies on file logging
+    }
+    @Override
     public void deleteAccount(UUID uuid) {
-        accounts.remove(uuid);
-        save();
+        AccountData removed = accounts.remove(uuid);
+        if (removed != null) {
+            // The tombstone outranks every record of the account written before it
+            enqueue(List.of(new JournalRecord(uuid, null, 0, removed.version + 1, true)));
+        }
+    }
+
+    // One line in the journal: the full state of an account after a change, or its deletion
+    private static class JournalRecord {
+        UUID uuid;
+        String name;
+        @com.google.gson.annotations.JsonAdapter(Money.JsonAdapter.class)
+        long balance;
+        long version;
+        boolean deleted;
+
+        JournalRecord(UUID uuid, String name, long balance, long version, boolean deleted) {
+            this.uuid = uuid;
+            this.name = name;
+            this.balance = balance;
+            this.version = version;
+            this.deleted = deleted;
+        }
+    }
+
+    private static class Checkpoint {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
     }
 }
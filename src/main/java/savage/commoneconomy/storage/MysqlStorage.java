@@ -3,6 +3,12 @@ package savage.commoneconomy.storage;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
 public class MysqlStorage extends SqlStorage {
     private final String host;
     private final int port;
@@ -57,4 +63,64 @@ public class MysqlStorage extends SqlStorage {
                 "details TEXT" +
                 ")";
     }
+
+    // CREATE INDEX has no IF NOT EXISTS here, the schema version guards it
+    @Override
+    protected List<String> getSchemaMigrations() {
+        return List.of(
+                "CREATE INDEX " + tablePrefix + "accounts_name_idx ON " + tablePrefix + "accounts ((LOWER(name)))",
+                "CREATE INDEX " + tablePrefix + "accounts_balance_idx ON " + tablePrefix + "accounts (balance)",
+                "CREATE INDEX " + tablePrefix + "transactions_time_idx ON " + tablePrefix + "transactions (timestamp)",
+                "CREATE INDEX " + tablePrefix + "transactions_source_idx ON " + tablePrefix + "transactions ((LOWER(source)), timestamp)",
+                "CREATE INDEX " + tablePrefix + "transactions_target_idx ON " + tablePrefix + "transactions ((LOWER(target)), timestamp)"
+        );
+    }
+
+    // Functional key parts need MySQL 8.0.13+ and fail on MariaDB; lookups still work there, just without these indexes
+    @Override
+    protected boolean isOptionalMigration(int step) {
+        return step == 0 || step == 3 || step == 4;
+    }
+
+    @Override
+    protected String getBinaryUuidType() {
+        return "BINARY(16)";
+    }
+
+    @Override
+    protected void migrateToBinaryUuids(Connection conn) throws SQLException {
+        String table = tablePrefix + "accounts";
+        boolean hasShadowColumn;
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, table, "uuid_bin")) {
+            hasShadowColumn = rs.next();
+        }
+        if (!hasShadowColumn) {
+            try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE " + table + " ADD COLUMN uuid_bin BINARY(16)")) {
+                stmt.executeUpdate();
+            }
+        }
+        // Bulk backfill while other servers keep writing
+        try (PreparedStatement stmt = conn.prepareStatement("UPDATE " + table + " SET uuid_bin = UNHEX(REPLACE(uuid, '-', ''))")) {
+            stmt.executeUpdate();
+        }
+        // Rows inserted since then still lack uuid_bin, so the switch itself blocks writes until it is done
+        try (PreparedStatement stmt = conn.prepareStatement("LOCK TABLES " + table + " WRITE")) {
+            stmt.executeUpdate();
+        }
+        try {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE " + table + " SET uuid_bin = UNHEX(REPLACE(uuid, '-', '')) WHERE uuid_bin IS NULL")) {
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "ALTER TABLE " + table + " DROP PRIMARY KEY, DROP COLUMN uuid, " +
+                            "CHANGE COLUMN uuid_bin uuid BINARY(16) NOT NULL FIRST, ADD PRIMARY KEY (uuid)")) {
+                stmt.executeUpdate();
+            }
+        } finally {
+            try (PreparedStatement stmt = conn.prepareStatement("UNLOCK TABLES")) {
+                stmt.executeUpdate();
+            }
+        }
+    }
 }
@@ -3,6 +3,13 @@ package savage.commoneconomy.storage;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
 public class PostgresStorage extends SqlStorage {
     private final String host;
     private final int port;
@@ -47,4 +54,54 @@ public class PostgresStorage extends SqlStorage {
                 "details VARCHAR(255)" +
                 ")";
     }
+
+    @Override
+    protected boolean supportsReturning() {
+        return true;
+    }
+
+    @Override
+    protected List<String> getSchemaMigrations() {
+        return List.of(
+                "CREATE INDEX IF NOT EXISTS " + tablePrefix + "accounts_name_idx ON " + tablePrefix + "accounts (LOWER(name))",
+                "CREATE INDEX IF NOT EXISTS " + tablePrefix + "accounts_balance_idx ON " + tablePrefix + "accounts (balance)",
+                "CREATE INDEX IF NOT EXISTS " + tablePrefix + "transactions_time_idx ON " + tablePrefix + "transactions (timestamp)",
+                "CREATE INDEX IF NOT EXISTS " + tablePrefix + "transactions_source_idx ON " + tablePrefix + "transactions (LOWER(source), timestamp)",
+                "CREATE INDEX IF NOT EXISTS " + tablePrefix + "transactions_target_idx ON " + tablePrefix + "transactions (LOWER(target), timestamp)"
+        );
+    }
+
+    @Override
+    protected String getBinaryUuidType() {
+        return "UUID";
+    }
+
+    @Override
+    protected void migrateToBinaryUuids(Connection conn) throws SQLException {
+        // Single transactional rewrite; the primary key index is rebuilt along with it. The table is rewritten under
+        // an ACCESS EXCLUSIVE lock, so reads and writes from every server wait until it finishes
+        savage.commoneconomy.SavsCommonEconomy.LOGGER.warn("Rewriting " + tablePrefix + "accounts with native UUID keys; the table is locked until this finishes");
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "ALTER TABLE " + tablePrefix + "accounts ALTER COLUMN uuid TYPE UUID USING uuid::uuid")) {
+            stmt.executeUpdate();
+        }
+    }
+
+    // The driver sends java.util.UUID as a native uuid parameter, no byte[] or String needed
+    @Override
+    protected void bindUuid(PreparedStatement stmt, int index, UUID uuid) throws SQLException {
+        if (binaryUuids) {
+            stmt.setObject(index, uuid);
+        } else {
+            super.bindUuid(stmt, index, uuid);
+        }
+    }
+
+    @Override
+    protected UUID readUuid(ResultSet rs, String column) throws SQLException {
+        if (binaryUuids) {
+            return rs.getObject(column, UUID.class);
+        }
+        return super.readUuid(rs, column);
+    }
 }
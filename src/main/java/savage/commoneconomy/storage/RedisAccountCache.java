@@ -0,0 +1,207 @@
+package savage.commoneconomy.storage;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import savage.commoneconomy.EconomyManager.AccountData;
+import savage.commoneconomy.SavsCommonEconomy;
+import savage.commoneconomy.config.EconomyConfig;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Account cache shared by every server through Redis hashes, sitting between each server's local cache and storage.
+ * Reads are served from Redis and fill it from storage on a miss; writes are copied in together with their version,
+ * and a script drops any copy older than what Redis already holds. Removals leave a tombstone with the version instead
+ * of a gap an older copy could fill. While Redis is unreachable everything goes straight to storage.
+ */
+public class RedisAccountCache {
+    // KEYS[1] account hash; ARGV version, balance, name (empty = only update an existing entry), ttl in ms.
+    // A tombstone left by invalidate() keeps its version, so only newer states replace it.
+    private static final String STORE_SCRIPT = String.join("\n",
+            "local current = redis.call('HGET', KEYS[1], 'version')",
+            "if current and tonumber(current) >= tonumber(ARGV[1]) then return 0 end",
+            "if (not current or redis.call('HEXISTS', KEYS[1], 'deleted') == 1) and ARGV[3] == '' then return 0 end",
+            "redis.call('HSET', KEYS[1], 'version', ARGV[1], 'balance', ARGV[2])",
+            "if ARGV[3] ~= '' then redis.call('HSET', KEYS[1], 'name', ARGV[3]) end",
+            "redis.call('HDEL', KEYS[1], 'deleted')",
+            "redis.call('PEXPIRE', KEYS[1], ARGV[4])",
+            "return 1");
+    // KEYS[1] account hash; ARGV fence version, ttl in ms. Replaces the entry with a tombstone holding the higher of
+    // the fence and the cached version, so a write still in flight from another server can't bring the old state back
+    private static final String TOMBSTONE_SCRIPT = String.join("\n",
+            "local fence = math.max(tonumber(redis.call('HGET', KEYS[1], 'version') or '0'), tonumber(ARGV[1]))",
+            "redis.call('DEL', KEYS[1])",
+            "redis.call('HSET', KEYS[1], 'version', fence, 'deleted', '1')",
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2])",
+            "return fence");
+    private static final long RECONNECT_INTERVAL_MS = 5000;
+
+    private final EconomyConfig.RedisCacheConfig config;
+    private final boolean debugLogging;
+    private final RedisClient client;
+    private volatile StatefulRedisConnection<String, String> connection;
+    private volatile String storeSha;
+    private volatile String tombstoneSha;
+    private volatile long nextConnectAttempt;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleWrites = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public RedisAccountCache(EconomyConfig.RedisConfig redisConfig, EconomyConfig.RedisCacheConfig config) {
+        this.config = config;
+        this.debugLogging = redisConfig.debugLogging;
+        RedisURI.Builder uriBuilder = RedisURI.builder()
+                .withHost(redisConfig.host)
+                .withPort(redisConfig.port)
+                .withTimeout(Duration.ofMillis(config.timeoutMs));
+        if (redisConfig.password != null && !redisConfig.password.isEmpty()) {
+            uriBuilder.withPassword(redisConfig.password.toCharArray());
+        }
+        this.client = RedisClient.create(uriBuilder.build());
+        // Fail at once while disconnected rather than queueing; storage answers instead
+        client.setOptions(ClientOptions.builder()
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .build());
+        connection();
+    }
+
+    // Reads the account from Redis, or from the loader on a miss and stores what it returns
+    public AccountData load(UUID uuid, Function<UUID, AccountData> loader) {
+        RedisCommands<String, String> commands = commands();
+        if (commands != null) {
+            try {
+                Map<String, String> hash = commands.hgetall(key(uuid));
+                if (!hash.containsKey("deleted") && hash.containsKey("name") && hash.containsKey("balance") && hash.containsKey("version")) {
+                    hits.incrementAndGet();
+                    return new AccountData(hash.get("name"), Long.parseLong(hash.get("balance")), Long.parseLong(hash.get("version")));
+                }
+                misses.incrementAndGet();
+            } catch (Exception e) {
+                failed("read", e);
+            }
+        }
+        AccountData data = loader.apply(uuid);
+        if (data != null) {
+            store(uuid, data);
+        }
+        return data;
+    }
+
+    // Write-through of a state just read from or committed to storage; older versions than the cached one are dropped
+    public void store(UUID uuid, AccountData data) {
+        String[] args = {String.valueOf(data.version), String.valueOf(data.balance), data.name == null ? "" : data.name,
+                String.valueOf(config.ttlSeconds * 1000)};
+        run(STORE_SCRIPT, storeSha, sha -> storeSha = sha, key(uuid), args, "write", stored -> {
+            if (stored == 0) {
+                staleWrites.incrementAndGet();
+            }
+        });
+    }
+
+    // For changes that don't move the version forward, such as a renamed or deleted account. version is the
+    // newest one storage had for the account; writes up to it are refused until the tombstone expires.
+    public void invalidate(UUID uuid, long version) {
+        String[] args = {String.valueOf(version), String.valueOf(config.ttlSeconds * 1000)};
+        run(TOMBSTONE_SCRIPT, tombstoneSha, sha -> tombstoneSha = sha, key(uuid), args, "invalidate", fence -> { });
+    }
+
+    // Sent asynchronously; commands on one connection run in order, and the version check settles races between servers
+    private void run(String script, String sha, Consumer<String> reloaded, String key, String[] args,
+                     String operation, Consumer<Long> onResult) {
+        StatefulRedisConnection<String, String> conn = connection();
+        if (conn == null) {
+            return;
+        }
+        String[] keys = {key};
+        conn.async().<Long>evalsha(sha, ScriptOutputType.INTEGER, keys, args).whenComplete((result, error) -> {
+            if (error instanceof RedisNoScriptException) {
+                // Script cache was flushed, e.g. by a Redis restart
+                conn.async().<Long>eval(script, ScriptOutputType.INTEGER, keys, args);
+                conn.async().scriptLoad(script).thenAccept(reloaded);
+            } else if (error != null) {
+                failed(operation, error);
+            } else {
+                onResult.accept(result);
+            }
+        });
+    }
+
+    public void close() {
+        StatefulRedisConnection<String, String> conn = connection;
+        if (conn != null) {
+            conn.close();
+        }
+        client.shutdown();
+    }
+
+    private RedisCommands<String, String> commands() {
+        StatefulRedisConnection<String, String> conn = connection();
+        return conn != null ? conn.sync() : null;
+    }
+
+    // Connects on first use and retries at most every few seconds after a failure
+    private StatefulRedisConnection<String, String> connection() {
+        StatefulRedisConnection<String, String> conn = connection;
+        if (conn != null) {
+            return conn.isOpen() ? conn : null;
+        }
+        long now = System.currentTimeMillis();
+        if (now < nextConnectAttempt) {
+            return null;
+        }
+        synchronized (this) {
+            if (connection == null && now >= nextConnectAttempt) {
+                try {
+                    StatefulRedisConnection<String, String> opened = client.connect();
+                    storeSha = opened.sync().scriptLoad(STORE_SCRIPT);
+                    tombstoneSha = opened.sync().scriptLoad(TOMBSTONE_SCRIPT);
+                    connection = opened;
+                    SavsCommonEconomy.LOGGER.info("Redis account cache connected");
+                } catch (Exception e) {
+                    nextConnectAttempt = now + RECONNECT_INTERVAL_MS;
+                    SavsCommonEconomy.LOGGER.warn("Redis account cache unavailable, reading from storage: " + e.getMessage());
+                }
+            }
+            return connection;
+        }
+    }
+
+    private void failed(String operation, Throwable error) {
+        errors.incrementAndGet();
+        if (debugLogging) {
+            SavsCommonEconomy.LOGGER.warn("Redis account cache " + operation + " failed: " + error.getMessage());
+        }
+    }
+
+    private String key(UUID uuid) {
+        return config.keyPrefix + uuid;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getStaleWriteCount() {
+        return staleWrites.get();
+    }
+
+    public long getErrorCount() {
+        return errors.get();
+    }
+}
@@ -0,0 +1,613 @@
+package savage.commoneconomy.storage;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.Limit;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.sync.RedisCommands;
+import savage.commoneconomy.EconomyManager.AccountData;
+import savage.commoneconomy.EconomyManager.TransferResult;
+import savage.commoneconomy.config.EconomyConfig;
+import savage.commoneconomy.util.TransactionLogger.LogEntry;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps everything in Redis: one hash per account, a name index hash, a sorted set of balances for the top list
+ * and a stream for the transaction log. Balance changes run as Lua scripts, so each is atomic across servers.
+ */
+public class RedisStorage implements EconomyStorage {
+    // Lua numbers are doubles, so balances are limited to the integers they represent exactly
+    private static final String CHECKS = String.join("\n",
+            "local function checked(balance)",
+            "  if balance > 9007199254740991 or balance < -9007199254740991 then error('balance overflow') end",
+            "  return string.format('%.0f', balance)",
+            "end");
+
+    // KEYS account, balances; ARGV delta, uuid. Returns {name, balance, version}, or nil if missing or short of funds
+    private static final String DELTA_SCRIPT = CHECKS + "\n" + String.join("\n",
+            "local current = redis.call('HGET', KEYS[1], 'balance')",
+            "if not current then return nil end",
+            "local balance = tonumber(current) + tonumber(ARGV[1])",
+            "if balance < 0 then return nil end",
+            "local text = checked(balance)",
+            "redis.call('HSET', KEYS[1], 'balance', text)",
+            "local version = redis.call('HINCRBY', KEYS[1], 'version', 1)",
+            "redis.call('ZADD', KEYS[2], text, ARGV[2])",
+            "return {redis.call('HGET', KEYS[1], 'name'), text, tostring(version)}");
+
+    // KEYS from, to, balances; ARGV amount, from uuid, to uuid. Returns both accounts, or nil if nothing was moved
+    private static final String TRANSFER_SCRIPT = CHECKS + "\n" + String.join("\n",
+            "local source = redis.call('HGET', KEYS[1], 'balance')",
+            "local target = redis.call('HGET', KEYS[2], 'balance')",
+            "local amount = tonumber(ARGV[1])",
+            "if not source or not target or tonumber(source) < amount then return nil end",
+            "if KEYS[1] ~= KEYS[2] then checked(tonumber(target) + amount) end",
+            "local result = {}",
+            "for i, delta in ipairs({-amount, amount}) do",
+            "  local text = checked(tonumber(redis.call('HGET', KEYS[i], 'balance')) + delta)",
+            "  redis.call('HSET', KEYS[i], 'balance', text)",
+            "  local version = redis.call('HINCRBY', KEYS[i], 'version', 1)",
+            "  redis.call('ZADD', KEYS[3], text, ARGV[i + 1])",
+            "  table.insert(result, redis.call('HGET', KEYS[i], 'name'))",
+            "  table.insert(result, text)",
+            "  table.insert(result, tostring(version))",
+            "end",
+            "return result");
+
+    // KEYS account, balances; ARGV amount, uuid, expected version (empty = any). Returns 1 if set
+    private static final String SET_SCRIPT = CHECKS + "\n" + String.join("\n",
+            "local version = redis.call('HGET', KEYS[1], 'version')",
+            "if not version or (ARGV[3] ~= '' and version ~= ARGV[3]) then return 0 end",
+            "local text = checked(tonumber(ARGV[1]))",
+            "redis.call('HSET', KEYS[1], 'balance', text)",
+            "redis.call('HINCRBY', KEYS[1], 'version', 1)",
+            "redis.call('ZADD', KEYS[2], text, ARGV[2])",
+            "return 1");
+
+    // KEYS balances, then one account per delta; ARGV deltas, then uuids. Missing and overflowing accounts are skipped
+    private static final String DELTAS_SCRIPT = String.join("\n",
+            "local count = #KEYS - 1",
+            "local applied = 0",
+            "for i = 1, count do",
+            "  local key = KEYS[i + 1]",
+            "  local current = redis.call('HGET', key, 'balance')",
+            "  if current then",
+            "    local balance = tonumber(current) + tonumber(ARGV[i])",
+            "    if balance <= 9007199254740991 and balance >= -9007199254740991 then",
+            "      local text = string.format('%.0f', balance)",
+            "      redis.call('HSET', key, 'balance', text)",
+            "      redis.call('HINCRBY', key, 'version', 1)",
+            "      redis.call('ZADD', KEYS[1], text, ARGV[count + i])",
+            "      applied = applied + 1",
+            "    end",
+            "  end",
+            "end",
+            "return applied");
+
+    // KEYS account, names, balances; ARGV uuid, name, default balance. Creates the account or renames an existing one
+    private static final String CREATE_SCRIPT = String.join("\n",
+            "local old = redis.call('HGET', KEYS[1], 'name')",
+            "if old then",
+            "  if redis.call('HGET', KEYS[2], string.lower(old)) == ARGV[1] then redis.call('HDEL', KEYS[2], string.lower(old)) end",
+            "  redis.call('HSET', KEYS[1], 'name', ARGV[2])",
+            "else",
+            "  redis.call('HSET', KEYS[1], 'name', ARGV[2], 'balance', ARGV[3], 'version', '0')",
+            "  redis.call('ZADD', KEYS[3], ARGV[3], ARGV[1])",
+            "end",
+            "redis.call('HSET', KEYS[2], string.lower(ARGV[2]), ARGV[1])",
+            "return 1");
+
+    // KEYS account, names, balances; ARGV uuid
+    private static final String DELETE_SCRIPT = String.join("\n",
+            "local name = redis.call('HGET', KEYS[1], 'name')",
+            "if name and redis.call('HGET', KEYS[2], string.lower(name)) == ARGV[1] then redis.call('HDEL', KEYS[2], string.lower(name)) end",
+            "redis.call('DEL', KEYS[1])",
+            "redis.call('ZREM', KEYS[3], ARGV[1])",
+            "return 1");
+
+    // KEYS log, then the source and target player logs of each entry (the log key itself when there is none);
+    // ARGV oldest id to keep (empty = keep all), player log ttl in ms (0 = none), then six fields per entry.
+    // Player logs hold copies under the same ids, so paging cursors mean the same position in either.
+    private static final String LOG_SCRIPT = String.join("\n",
+            "local names = {'timestamp', 'source', 'target', 'amount', 'type', 'details'}",
+            "local function add(call, key, id, fields)",
+            "  local args = {'XADD', key}",
+            "  if ARGV[1] ~= '' then table.insert(args, 'MINID'); table.insert(args, '~'); table.insert(args, ARGV[1]) end",
+            "  table.insert(args, id)",
+            "  for _, value in ipairs(fields) do table.insert(args, value) end",
+            "  return call(unpack(args))",
+            "end",
+            "local function copy(key, id, fields)",
+            "  if key == KEYS[1] then return end",
+            "  add(redis.pcall, key, id, fields) -- A copy that can't take the id is skipped, the log itself has the entry",
+            "  if ARGV[2] ~= '0' then redis.call('PEXPIRE', key, ARGV[2]) end",
+            "end",
+            "local count = (#ARGV - 2) / 6",
+            "for i = 0, count - 1 do",
+            "  local fields = {}",
+            "  for f = 1, 6 do table.insert(fields, names[f]); table.insert(fields, ARGV[2 + i * 6 + f]) end",
+            "  local id = add(redis.call, KEYS[1], '*', fields)",
+            "  local source, target = KEYS[2 + i * 2], KEYS[3 + i * 2]",
+            "  copy(source, id, fields)",
+            "  if target ~= source then copy(target, id, fields) end",
+            "end",
+            "return count");
+
+    // Log entry ids pack the stream entry id (millis-sequence) so they can serve as paging cursors
+    private static final int SEQUENCE_BITS = 20;
+    private static final int SCAN_CHUNK = 500;
+
+    private final savage.commoneconomy.EconomyManager manager;
+    private final EconomyConfig.RedisConfig config;
+    private final String keyPrefix;
+    private RedisClient client;
+    private StatefulRedisConnection<String, String> connection;
+    private RedisCommands<String, String> commands;
+    private final Map<String, String> scriptDigests = new HashMap<>();
+
+    public RedisStorage(savage.commoneconomy.EconomyManager manager, EconomyConfig.RedisConfig config, String keyPrefix) {
+        this.manager = manager;
+        this.config = config;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public void load() {
+        RedisURI.Builder uriBuilder = RedisURI.builder()
+                .withHost(config.host)
+                .withPort(config.port)
+                .withTimeout(Duration.ofMillis(config.connectTimeoutMs));
+        if (config.password != null && !config.password.isEmpty()) {
+            uriBuilder.withPassword(config.password.toCharArray());
+        }
+        client = RedisClient.create(uriBuilder.build());
+        connection = client.connect();
+        commands = connection.sync();
+        for (String script : List.of(DELTA_SCRIPT, TRANSFER_SCRIPT, SET_SCRIPT, DELTAS_SCRIPT, CREATE_SCRIPT, DELETE_SCRIPT, LOG_SCRIPT)) {
+            scriptDigests.put(script, commands.scriptLoad(script));
+        }
+    }
+
+    @Override
+    public void save() {
+        // Every write is already in Redis, so only the connection needs closing
+        if (connection != null) {
+            connection.close();
+        }
+        if (client != null) {
+            client.shutdown();
+        }
+    }
+
+    private String accountKey(UUID uuid) {
+        return keyPrefix + "account:" + uuid;
+    }
+
+    private String namesKey() {
+        return keyPrefix + "names";
+    }
+
+    private String balancesKey() {
+        return keyPrefix + "balances";
+    }
+
+    private String logKey() {
+        return keyPrefix + "transactions";
+    }
+
+    // Copies of the entries a player was source or target of, so searching for them doesn't read the whole log
+    private String playerLogKey(String name) {
+        return name == null || name.isEmpty() ? logKey() : logKey() + ":" + name.toLowerCase();
+    }
+
+    // Runs a preloaded script, sending the source again if Redis has since lost it
+    private <T> T run(String script, ScriptOutputType type, String[] keys, String... args) {
+        try {
+            try {
+                return commands.evalsha(scriptDigests.get(script), type, keys, args);
+            } catch (RedisNoScriptException e) {
+                return commands.eval(script, type, keys, args);
+            }
+        } catch (RedisCommandExecutionException e) {
+            if (e.getMessage() != null && e.getMessage().contains("balance overflow")) {
+                throw new ArithmeticException("balance overflow");
+            }
+            throw e;
+        }
+    }
+
+    private static AccountData readAccount(List<Object> values, int offset) {
+        return new AccountData(String.valueOf(values.get(offset)), Long.parseLong(String.valueOf(values.get(offset + 1))),
+                Long.parseLong(String.valueOf(values.get(offset + 2))));
+    }
+
+    private static AccountData readAccount(List<KeyValue<String, String>> fields) {
+        String name = fields.get(0).getValueOrElse(null);
+        String balance = fields.get(1).getValueOrElse(null);
+        if (name == null || balance == null) {
+            return null;
+        }
+        return new AccountData(name, Long.parseLong(balance), Long.parseLong(fields.get(2).getValueOrElse("0")));
+    }
+
+    @Override
+    public long getBalance(UUID uuid) {
+        try {
+            String balance = commands.hget(accountKey(uuid), "balance");
+            if (balance != null) {
+                return Long.parseLong(balance);
+            }
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+        return 0; // Default balance is handled by the manager for missing accounts
+    }
+
+    @Override
+    public void setBalance(UUID uuid, long amount) {
+        try {
+            run(SET_SCRIPT, ScriptOutputType.INTEGER, new String[]{accountKey(uuid), balancesKey()},
+                    String.valueOf(amount), uuid.toString(), "");
+        } catch (RedisException | ArithmeticException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public boolean setBalance(UUID uuid, long amount, long expectedVersion) {
+        try {
+            Long updated = run(SET_SCRIPT, ScriptOutputType.INTEGER, new String[]{accountKey(uuid), balancesKey()},
+                    String.valueOf(amount), uuid.toString(), String.valueOf(expectedVersion));
+            return updated != null && updated == 1;
+        } catch (RedisException | ArithmeticException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    @Override
+    public AccountData applyDelta(UUID uuid, long delta) {
+        try {
+            List<Object> result = run(DELTA_SCRIPT, ScriptOutputType.MULTI, new String[]{accountKey(uuid), balancesKey()},
+                    String.valueOf(delta), uuid.toString());
+            return result == null || result.isEmpty() ? null : readAccount(result, 0);
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public TransferResult transfer(UUID from, UUID to, long amount) {
+        try {
+            List<Object> result = run(TRANSFER_SCRIPT, ScriptOutputType.MULTI, new String[]{accountKey(from), accountKey(to), balancesKey()},
+                    String.valueOf(amount), from.toString(), to.toString());
+            if (result == null || result.isEmpty()) {
+                return null; // Missing account or insufficient funds
+            }
+            return new TransferResult(readAccount(result, 0), readAccount(result, 3));
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean applyDeltas(Map<UUID, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return true;
+        }
+        String[] keys = new String[deltas.size() + 1];
+        String[] args = new String[deltas.size() * 2];
+        keys[0] = balancesKey();
+        int i = 0;
+        for (Map.Entry<UUID, Long> entry : deltas.entrySet()) {
+            keys[i + 1] = accountKey(entry.getKey());
+            args[i] = String.valueOf(entry.getValue());
+            args[deltas.size() + i] = entry.getKey().toString();
+            i++;
+        }
+        try {
+            Long applied = run(DELTAS_SCRIPT, ScriptOutputType.INTEGER, keys, args);
+            if (applied != null && applied < deltas.size()) {
+                savage.commoneconomy.SavsCommonEconomy.LOGGER.warn("Skipped " + (deltas.size() - applied) + " buffered balance change(s) for missing accounts or overflowing balances");
+            }
+            return true;
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasAccount(UUID uuid) {
+        try {
+            return commands.exists(accountKey(uuid)) > 0;
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    @Override
+    public AccountData getAccount(UUID uuid) {
+        try {
+            return readAccount(commands.hmget(accountKey(uuid), "name", "balance", "version"));
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public Map<UUID, AccountData> getAccounts(Collection<UUID> uuids) {
+        Map<UUID, AccountData> accounts = new HashMap<>();
+        List<UUID> ids = new ArrayList<>(uuids);
+        for (int start = 0; start < ids.size(); start += SCAN_CHUNK) {
+            List<UUID> chunk = ids.subList(start, Math.min(ids.size(), start + SCAN_CHUNK));
+            List<AccountData> loaded = loadAccounts(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                if (loaded.get(i) != null) {
+                    accounts.put(chunk.get(i), loaded.get(i));
+                }
+            }
+        }
+        return accounts;
+    }
+
+    // One pipelined round trip for the whole list; missing accounts come back as null
+    private List<AccountData> loadAccounts(List<UUID> uuids) {
+        List<AccountData> accounts = new ArrayList<>(uuids.size());
+        try {
+            RedisAsyncCommands<String, String> async = connection.async();
+            List<RedisFuture<List<KeyValue<String, String>>>> futures = new ArrayList<>(uuids.size());
+            for (UUID uuid : uuids) {
+                futures.add(async.hmget(accountKey(uuid), "name", "balance", "version"));
+            }
+            if (!LettuceFutures.awaitAll(config.connectTimeoutMs, TimeUnit.MILLISECONDS, futures.toArray(new RedisFuture[0]))) {
+                throw new RedisException("Timed out loading " + uuids.size() + " accounts");
+            }
+            for (RedisFuture<List<KeyValue<String, String>>> future : futures) {
+                accounts.add(readAccount(future.get()));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            accounts.clear();
+            uuids.forEach(uuid -> accounts.add(null));
+        }
+        return accounts;
+    }
+
+    @Override
+    public void createAccount(UUID uuid, String name) {
+        try {
+            run(CREATE_SCRIPT, ScriptOutputType.INTEGER, new String[]{accountKey(uuid), namesKey(), balancesKey()},
+                    uuid.toString(), name, String.valueOf(manager.getDefaultBalanceMinor()));
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public UUID getUUID(String name) {
+        try {
+            String uuid = commands.hget(namesKey(), name.toLowerCase());
+            if (uuid != null) {
+                return UUID.fromString(uuid);
+            }
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public Collection<String> getOfflinePlayerNames() {
+        List<String> names = new ArrayList<>();
+        forEachAccount((uuid, data) -> names.add(data.name));
+        return names;
+    }
+
+    @Override
+    public List<AccountData> getTopAccounts(int limit) {
+        List<AccountData> accounts = new ArrayList<>();
+        try {
+            List<UUID> uuids = new ArrayList<>();
+            for (String member : commands.zrevrange(balancesKey(), 0, limit - 1)) {
+                uuids.add(UUID.fromString(member));
+            }
+            for (AccountData data : loadAccounts(uuids)) {
+                if (data != null) {
+                    accounts.add(data);
+                }
+            }
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+        return accounts;
+    }
+
+    @Override
+    public void forEachAccount(java.util.function.BiConsumer<UUID, AccountData> action) {
+        try {
+            // Every account is in the balance set, so walk it in chunks
+            for (long start = 0; ; start += SCAN_CHUNK) {
+                List<String> members = commands.zrange(balancesKey(), start, start + SCAN_CHUNK - 1);
+                if (members.isEmpty()) {
+                    break;
+                }
+                List<UUID> uuids = new ArrayList<>(members.size());
+                for (String member : members) {
+                    uuids.add(UUID.fromString(member));
+                }
+                List<AccountData> accounts = loadAccounts(uuids);
+                for (int i = 0; i < uuids.size(); i++) {
+                    if (accounts.get(i) != null) {
+                        action.accept(uuids.get(i), accounts.get(i));
+                    }
+                }
+            }
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void logTransaction(long timestamp, String source, String target, BigDecimal amount, String type, String details) {
+        try {
+            appendLogs(List.of(new LogEntry(0, timestamp, type, source, target, amount, details)));
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public boolean logTransactions(List<LogEntry> entries) {
+        try {
+            appendLogs(entries);
+            return true;
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    // One script call per batch, which also trims entries past the retention from every stream it writes
+    private void appendLogs(List<LogEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        long retentionMillis = TimeUnit.DAYS.toMillis(Math.max(0, config.logRetentionDays));
+        String[] keys = new String[1 + entries.size() * 2];
+        String[] args = new String[2 + entries.size() * 6];
+        keys[0] = logKey();
+        args[0] = retentionMillis > 0 ? (System.currentTimeMillis() - retentionMillis) + "-0" : "";
+        args[1] = String.valueOf(retentionMillis);
+        for (int i = 0; i < entries.size(); i++) {
+            LogEntry entry = entries.get(i);
+            keys[1 + i * 2] = playerLogKey(entry.source);
+            keys[2 + i * 2] = playerLogKey(entry.target);
+            int base = 2 + i * 6;
+            args[base] = String.valueOf(entry.timestampMillis);
+            args[base + 1] = entry.source == null ? "" : entry.source;
+            args[base + 2] = entry.target == null ? "" : entry.target;
+            args[base + 3] = entry.amount.toPlainString();
+            args[base + 4] = entry.type == null ? "" : entry.type;
+            args[base + 5] = entry.details == null ? "" : entry.details;
+        }
+        run(LOG_SCRIPT, ScriptOutputType.INTEGER, keys, args);
+    }
+
+    @Override
+    public List<LogEntry> searchLogs(String target, long cutoffTimestamp) {
+        return searchLogs(target, cutoffTimestamp, Long.MAX_VALUE, Long.MAX_VALUE, true, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Only the cursor id is used: it encodes the stream position, which already orders entries. Entries are added
+     * after they happen, so none newer than the cutoff can sit before the cutoff's position in the stream.
+     */
+    @Override
+    public List<LogEntry> searchLogs(String target, long cutoffTimestamp, long cursorTimestamp, long cursorId, boolean older, int limit) {
+        List<LogEntry> logs = new ArrayList<>();
+        String search = target.equals("*") ? null : target.toLowerCase();
+        String key = search == null ? logKey() : playerLogKey(search);
+        String lowest = (cutoffTimestamp + 1) + "-0";
+        String position = cursorId == Long.MAX_VALUE ? null : unpackId(cursorId);
+
+        try {
+            while (logs.size() < limit) {
+                List<StreamMessage<String, String>> chunk;
+                if (older) {
+                    String highest = position == null ? "+" : previousId(position);
+                    if (highest == null) {
+                        break;
+                    }
+                    chunk = commands.xrevrange(key, Range.create(lowest, highest), Limit.from(SCAN_CHUNK));
+                } else {
+                    String from = position == null ? lowest : nextId(position);
+                    chunk = commands.xrange(key, Range.create(from, "+"), Limit.from(SCAN_CHUNK));
+                }
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                for (StreamMessage<String, String> message : chunk) {
+                    LogEntry entry = readLogEntry(message);
+                    if (entry.timestampMillis > cutoffTimestamp && (search == null
+                            || search.equals(entry.source.toLowerCase()) || search.equals(entry.target.toLowerCase()))) {
+                        logs.add(entry);
+                        if (logs.size() >= limit) {
+                            break;
+                        }
+                    }
+                }
+                position = chunk.get(chunk.size() - 1).getId();
+            }
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+        return logs;
+    }
+
+    private static LogEntry readLogEntry(StreamMessage<String, String> message) {
+        Map<String, String> body = message.getBody();
+        return new LogEntry(packId(message.getId()), Long.parseLong(body.getOrDefault("timestamp", "0")), body.get("type"),
+                body.getOrDefault("source", ""), body.getOrDefault("target", ""), new BigDecimal(body.getOrDefault("amount", "0")),
+                body.get("details"));
+    }
+
+    // Stream ids are "<millis>-<sequence>"; the sequence is at most a few entries per millisecond in practice
+    private static long packId(String id) {
+        int dash = id.indexOf('-');
+        long sequence = Math.min(Long.parseLong(id.substring(dash + 1)), (1L << SEQUENCE_BITS) - 1);
+        return Long.parseLong(id.substring(0, dash)) << SEQUENCE_BITS | sequence;
+    }
+
+    private static String unpackId(long id) {
+        return (id >>> SEQUENCE_BITS) + "-" + (id & ((1L << SEQUENCE_BITS) - 1));
+    }
+
+    private static String nextId(String id) {
+        int dash = id.indexOf('-');
+        return id.substring(0, dash) + "-" + (Long.parseLong(id.substring(dash + 1)) + 1);
+    }
+
+    // The id just before the given one, or null if there is none
+    private static String previousId(String id) {
+        int dash = id.indexOf('-');
+        long millis = Long.parseLong(id.substring(0, dash));
+        long sequence = Long.parseLong(id.substring(dash + 1));
+        if (sequence > 0) {
+            return millis + "-" + (sequence - 1);
+        }
+        return millis > 0 ? (millis - 1) + "-" + Long.MAX_VALUE : null;
+    }
+
+    @Override
+    public void deleteAccount(UUID uuid) {
+        try {
+            run(DELETE_SCRIPT, ScriptOutputType.INTEGER, new String[]{accountKey(uuid), namesKey(), balancesKey()}, uuid.toString());
+        } catch (RedisException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package savage.commoneconomy.storage;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import savage.commoneconomy.EconomyManager.AccountData;
+import savage.commoneconomy.EconomyManager.TransferResult;
 
 import java.math.BigDecimal;
 import java.sql.Connection;
@@ -12,12 +13,15 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public abstract class SqlStorage implements EconomyStorage {
     protected HikariDataSource dataSource;
     protected final String tablePrefix;
     protected final savage.commoneconomy.EconomyManager manager;
+    // Decided in createTables from the config and what the existing table actually holds
+    protected boolean binaryUuids;
 
     public SqlStorage(savage.commoneconomy.EconomyManager manager, String tablePrefix) {
         this.manager = manager;
@@ -27,11 +31,12 @@ public abstract class SqlStorage implements EconomyStorage {
     protected abstract void setupDataSource();
 
     protected void createTables() {
+        boolean wantBinary = "BINARY".equalsIgnoreCase(manager.getConfig().storage.uuidFormat);
         try (Connection conn = dataSource.getConnection()) {
             // Create accounts table
             try (PreparedStatement stmt = conn.prepareStatement(
                      "CREATE TABLE IF NOT EXISTS " + tablePrefix + "accounts (" +
-                             "uuid VARCHAR(36) PRIMARY KEY, " +
+                             "uuid " + (wantBinary ? getBinaryUuidType() : "VARCHAR(36)") + " PRIMARY KEY, " +
                              "name VARCHAR(16) NOT NULL, " +
                              "balance DECIMAL(20, 2) NOT NULL, " +
                              "version BIGINT DEFAULT 0" +
@@ -55,6 +60,18 @@ public abstract class SqlStorage implements EconomyStorage {
             try (PreparedStatement stmt = conn.prepareStatement(getTransactionsTableCreationSql())) {
                 stmt.executeUpdate();
             }
+
+            migrateSchema(conn);
+
+            binaryUuids = !hasStringUuids(conn);
+            if (wantBinary && !binaryUuids) {
+                savage.commoneconomy.SavsCommonEconomy.LOGGER.info("Converting " + tablePrefix + "accounts to binary UUID keys...");
+                migrateToBinaryUuids(conn);
+                binaryUuids = true;
+                savage.commoneconomy.SavsCommonEconomy.LOGGER.info("Binary UUID conversion complete");
+            } else if (!wantBinary && binaryUuids) {
+                savage.commoneconomy.SavsCommonEconomy.LOGGER.warn("uuidFormat is STRING but " + tablePrefix + "accounts already uses binary keys, keeping binary");
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -62,6 +79,131 @@ public abstract class SqlStorage implements EconomyStorage {
 
     protected abstract String getTransactionsTableCreationSql();
 
+    // Statements applied in order on top of the base tables; entry i brings the schema to version i + 1
+    protected abstract List<String> getSchemaMigrations();
+
+    private void migrateSchema(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "CREATE TABLE IF NOT EXISTS " + tablePrefix + "schema_version (id INT PRIMARY KEY, version INT NOT NULL)")) {
+            stmt.executeUpdate();
+        }
+
+        int version = getSchemaVersion(conn);
+        if (version < 0) {
+            try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO " + tablePrefix + "schema_version (id, version) VALUES (1, 0)")) {
+                stmt.executeUpdate();
+            } catch (SQLException e) {
+                // Another server sharing the database inserted it first
+            }
+            version = Math.max(getSchemaVersion(conn), 0);
+        }
+
+        List<String> migrations = getSchemaMigrations();
+        while (version < migrations.size()) {
+            try (PreparedStatement stmt = conn.prepareStatement(migrations.get(version))) {
+                stmt.executeUpdate();
+            } catch (SQLException e) {
+                // Another server sharing the database may have applied this step already
+                if (getSchemaVersion(conn) > version) {
+                    version = getSchemaVersion(conn);
+                    continue;
+                }
+                if (!isOptionalMigration(version)) {
+                    savage.commoneconomy.SavsCommonEconomy.LOGGER.error("Schema migration " + (version + 1) + " failed, leaving schema at version " + version, e);
+                    return;
+                }
+                // Recorded as done so it isn't retried on every startup and the later steps still run
+                savage.commoneconomy.SavsCommonEconomy.LOGGER.warn("Skipping schema migration " + (version + 1) + ", not supported by this database: " + e.getMessage());
+            }
+            version++;
+            try (PreparedStatement stmt = conn.prepareStatement("UPDATE " + tablePrefix + "schema_version SET version = ? WHERE id = 1")) {
+                stmt.setInt(1, version);
+                stmt.executeUpdate();
+            }
+            savage.commoneconomy.SavsCommonEconomy.LOGGER.info("Applied schema migration " + version);
+        }
+    }
+
+    // Steps (0-based) that only speed things up and may be skipped where the database can't apply them
+    protected boolean isOptionalMigration(int step) {
+        return false;
+    }
+
+    // Column type for binary UUID keys in this dialect
+    protected abstract String getBinaryUuidType();
+
+    // Converts an existing VARCHAR(36) uuid column to getBinaryUuidType() in place
+    protected abstract void migrateToBinaryUuids(Connection conn) throws SQLException;
+
+    private boolean hasStringUuids(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT uuid FROM " + tablePrefix + "accounts WHERE 1 = 0");
+             ResultSet rs = stmt.executeQuery()) {
+            switch (rs.getMetaData().getColumnType(1)) {
+                case java.sql.Types.CHAR:
+                case java.sql.Types.VARCHAR:
+                case java.sql.Types.LONGVARCHAR:
+                case java.sql.Types.NCHAR:
+                case java.sql.Types.NVARCHAR:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    protected void bindUuid(PreparedStatement stmt, int index, UUID uuid) throws SQLException {
+        if (binaryUuids) {
+            stmt.setBytes(index, toBytes(uuid));
+        } else {
+            stmt.setString(index, uuid.toString());
+        }
+    }
+
+    // Balances live in DECIMAL(20, 2) columns and only become BigDecimal at the JDBC boundary
+    protected void bindMoney(PreparedStatement stmt, int index, long minor) throws SQLException {
+        stmt.setBigDecimal(index, savage.commoneconomy.util.Money.toBigDecimal(minor));
+    }
+
+    protected long readMoney(ResultSet rs, String column) throws SQLException {
+        return savage.commoneconomy.util.Money.fromBigDecimal(rs.getBigDecimal(column));
+    }
+
+    protected UUID readUuid(ResultSet rs, String column) throws SQLException {
+        if (binaryUuids) {
+            return fromBytes(rs.getBytes(column));
+        }
+        return UUID.fromString(rs.getString(column));
+    }
+
+    // Big-endian, the same byte order as UNHEX() of the dashed string form
+    protected static byte[] toBytes(UUID uuid) {
+        byte[] bytes = new byte[16];
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (msb >>> (56 - 8 * i));
+            bytes[8 + i] = (byte) (lsb >>> (56 - 8 * i));
+        }
+        return bytes;
+    }
+
+    protected static UUID fromBytes(byte[] bytes) {
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (bytes[i] & 0xFF);
+            lsb = (lsb << 8) | (bytes[8 + i] & 0xFF);
+        }
+        return new UUID(msb, lsb);
+    }
+
+    private int getSchemaVersion(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT version FROM " + tablePrefix + "schema_version WHERE id = 1");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt("version") : -1;
+        }
+    }
+
     @Override
     public void load() {
         setupDataSource();
@@ -77,29 +219,29 @@ public abstract class SqlStorage implements EconomyStorage {
     }
 
     @Override
-    public BigDecimal getBalance(UUID uuid) {
+    public long getBalance(UUID uuid) {
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement("SELECT balance FROM " + tablePrefix + "accounts WHERE uuid = ?")) {
-            stmt.setString(1, uuid.toString());
+            bindUuid(stmt, 1, uuid);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return rs.getBigDecimal("balance");
+                    return readMoney(rs, "balance");
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return BigDecimal.ZERO; // Default balance should be handled by manager if account doesn't exist, but here we return 0
+        return 0; // Default balance should be handled by manager if account doesn't exist, but here we return 0
     }
 
     @Override
-    public void setBalance(UUID uuid, BigDecimal amount) {
+    public void setBalance(UUID uuid, long amount) {
         // Legacy method - force update without version check
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(
                      "UPDATE " + tablePrefix + "accounts SET balance = ?, version = version + 1 WHERE uuid = ?")) {
-            stmt.setBigDecimal(1, amount);
-            stmt.setString(2, uuid.toString());
+            bindMoney(stmt, 1, amount);
+            bindUuid(stmt, 2, uuid);
             stmt.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -107,12 +249,12 @@ public abstract class SqlStorage implements EconomyStorage {
     }
 
     @Override
-    public boolean setBalance(UUID uuid, BigDecimal amount, long expectedVersion) {
+    public boolean setBalance(UUID uuid, long amount, long expectedVersion) {
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(
                      "UPDATE " + tablePrefix + "accounts SET balance = ?, version = version + 1 WHERE uuid = ? AND version = ?")) {
-            stmt.setBigDecimal(1, amount);
-            stmt.setString(2, uuid.toString());
+            bindMoney(stmt, 1, amount);
+            bindUuid(stmt, 2, uuid);
             stmt.setLong(3, expectedVersion);
             int rows = stmt.executeUpdate();
             return rows > 0;
@@ -122,11 +264,135 @@ public abstract class SqlStorage implements EconomyStorage {
         return false;
     }
 
+    // Whether the dialect can hand back the updated row from an UPDATE (UPDATE ... RETURNING)
+    protected boolean supportsReturning() {
+        return false;
+    }
+
+    @Override
+    public AccountData applyDelta(UUID uuid, long delta) {
+        try (Connection conn = dataSource.getConnection()) {
+            if (supportsReturning()) {
+                return applyDelta(conn, uuid, delta);
+            }
+
+            // Without RETURNING we re-read the row, so keep the row lock until we have it
+            conn.setAutoCommit(false);
+            try {
+                AccountData data = applyDelta(conn, uuid, delta);
+                conn.commit();
+                return data;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    protected AccountData applyDelta(Connection conn, UUID uuid, long delta) throws SQLException {
+        String sql = "UPDATE " + tablePrefix + "accounts SET balance = balance + ?, version = version + 1 WHERE uuid = ? AND balance + ? >= 0";
+        if (supportsReturning()) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql + " RETURNING name, balance, version")) {
+                bindMoney(stmt, 1, delta);
+                bindUuid(stmt, 2, uuid);
+                bindMoney(stmt, 3, delta);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? readAccount(rs) : null;
+                }
+            }
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bindMoney(stmt, 1, delta);
+            bindUuid(stmt, 2, uuid);
+            bindMoney(stmt, 3, delta);
+            if (stmt.executeUpdate() == 0) {
+                return null; // Missing account or insufficient funds
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT name, balance, version FROM " + tablePrefix + "accounts WHERE uuid = ?")) {
+            bindUuid(stmt, 1, uuid);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? readAccount(rs) : null;
+            }
+        }
+    }
+
+    @Override
+    public TransferResult transfer(UUID from, UUID to, long amount) {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Always touch the rows in the same order so two opposite transfers can't deadlock
+                boolean fromFirst = from.compareTo(to) <= 0;
+                AccountData first = applyDelta(conn, fromFirst ? from : to, fromFirst ? -amount : amount);
+                AccountData second = first == null ? null : applyDelta(conn, fromFirst ? to : from, fromFirst ? amount : -amount);
+                if (second == null) {
+                    conn.rollback();
+                    return null;
+                }
+                conn.commit();
+                return fromFirst ? new TransferResult(first, second) : new TransferResult(second, first);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean applyDeltas(Map<UUID, Long> deltas) {
+        // Same row order as transfer() so a flush can't deadlock against it
+        List<Map.Entry<UUID, Long>> entries = new ArrayList<>(deltas.entrySet());
+        entries.sort(Map.Entry.comparingByKey());
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE " + tablePrefix + "accounts SET balance = balance + ?, version = version + 1 WHERE uuid = ?")) {
+                for (Map.Entry<UUID, Long> entry : entries) {
+                    bindMoney(stmt, 1, entry.getValue());
+                    bindUuid(stmt, 2, entry.getKey());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    protected AccountData readAccount(ResultSet rs) throws SQLException {
+        return new AccountData(
+                rs.getString("name"),
+                readMoney(rs, "balance"),
+                rs.getLong("version")
+        );
+    }
+
     @Override
     public boolean hasAccount(UUID uuid) {
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM " + tablePrefix + "accounts WHERE uuid = ?")) {
-            stmt.setString(1, uuid.toString());
+            bindUuid(stmt, 1, uuid);
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next();
             }
@@ -140,14 +406,10 @@ public abstract class SqlStorage implements EconomyStorage {
     public AccountData getAccount(UUID uuid) {
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement("SELECT name, balance, version FROM " + tablePrefix + "accounts WHERE uuid = ?")) {
-            stmt.setString(1, uuid.toString());
+            bindUuid(stmt, 1, uuid);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return new AccountData(
-                            rs.getString("name"),
-                            rs.getBigDecimal("balance"),
-                            rs.getLong("version")
-                    );
+                    return readAccount(rs);
                 }
             }
         } catch (SQLException e) {
@@ -156,6 +418,33 @@ public abstract class SqlStorage implements EconomyStorage {
         return null;
     }
 
+    @Override
+    public Map<UUID, AccountData> getAccounts(Collection<UUID> uuids) {
+        Map<UUID, AccountData> accounts = new java.util.HashMap<>();
+        List<UUID> ids = new ArrayList<>(uuids);
+        try (Connection conn = dataSource.getConnection()) {
+            // Chunked to stay under the bound parameter limit
+            for (int start = 0; start < ids.size(); start += 500) {
+                List<UUID> chunk = ids.subList(start, Math.min(ids.size(), start + 500));
+                String placeholders = String.join(", ", java.util.Collections.nCopies(chunk.size(), "?"));
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT uuid, name, balance, version FROM " + tablePrefix + "accounts WHERE uuid IN (" + placeholders + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        bindUuid(stmt, i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            accounts.put(readUuid(rs, "uuid"), readAccount(rs));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return accounts;
+    }
+
     @Override
     public void createAccount(UUID uuid, String name) {
         if (hasAccount(uuid)) {
@@ -164,7 +453,7 @@ public abstract class SqlStorage implements EconomyStorage {
                  PreparedStatement stmt = conn.prepareStatement(
                          "UPDATE " + tablePrefix + "accounts SET name = ? WHERE uuid = ?")) {
                 stmt.setString(1, name);
-                stmt.setString(2, uuid.toString());
+                bindUuid(stmt, 2, uuid);
                 stmt.executeUpdate();
             } catch (SQLException e) {
                 e.printStackTrace();
@@ -174,9 +463,9 @@ public abstract class SqlStorage implements EconomyStorage {
             try (Connection conn = dataSource.getConnection();
                  PreparedStatement stmt = conn.prepareStatement(
                          "INSERT INTO " + tablePrefix + "accounts (uuid, name, balance, version) VALUES (?, ?, ?, 0)")) {
-                stmt.setString(1, uuid.toString());
+                bindUuid(stmt, 1, uuid);
                 stmt.setString(2, name);
-                stmt.setBigDecimal(3, BigDecimal.valueOf(1000)); // Default balance, should be passed from manager really
+                bindMoney(stmt, 3, manager.getDefaultBalanceMinor());
                 stmt.executeUpdate();
             } catch (SQLException e) {
                 e.printStackTrace();
@@ -191,7 +480,7 @@ public abstract class SqlStorage implements EconomyStorage {
             stmt.setString(1, name);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return UUID.fromString(rs.getString("uuid"));
+                    return readUuid(rs, "uuid");
                 }
             }
         } catch (SQLException e) {
@@ -215,6 +504,21 @@ public abstract class SqlStorage implements EconomyStorage {
         return names;
     }
 
+    @Override
+    public void forEachAccount(java.util.function.BiConsumer<UUID, AccountData> action) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT uuid, name, balance, version FROM " + tablePrefix + "accounts")) {
+            stmt.setFetchSize(1000);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(readUuid(rs, "uuid"), readAccount(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
     @Override
     public void logTransaction(long timestamp, String source, String target, BigDecimal amount, String type, String details) {
         try (Connection conn = dataSource.getConnection();
@@ -232,12 +536,44 @@ public abstract class SqlStorage implements EconomyStorage {
         }
     }
 
+    @Override
+    public boolean logTransactions(List<savage.commoneconomy.util.TransactionLogger.LogEntry> entries) {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            // On MySQL, rewriteBatchedStatements turns this batch into multi-row INSERTs
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO " + tablePrefix + "transactions (timestamp, source, target, amount, type, details) VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (savage.commoneconomy.util.TransactionLogger.LogEntry entry : entries) {
+                    stmt.setLong(1, entry.timestampMillis);
+                    stmt.setString(2, entry.source);
+                    stmt.setString(3, entry.target);
+                    stmt.setBigDecimal(4, entry.amount);
+                    stmt.setString(5, entry.type);
+                    stmt.setString(6, entry.details);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
     @Override
     public List<savage.commoneconomy.util.TransactionLogger.LogEntry> searchLogs(String target, long cutoffTimestamp) {
         List<savage.commoneconomy.util.TransactionLogger.LogEntry> logs = new ArrayList<>();
         String sql = "SELECT timestamp, source, target, amount, type, details FROM " + tablePrefix + "transactions WHERE timestamp > ?";
         if (!target.equals("*")) {
-            sql += " AND (LOWER(source) LIKE ? OR LOWER(target) LIKE ?)";
+            // Exact match so the participant indexes can be used
+            sql += " AND (LOWER(source) = ? OR LOWER(target) = ?)";
         }
         sql += " ORDER BY timestamp DESC";
 
@@ -245,7 +581,7 @@ public abstract class SqlStorage implements EconomyStorage {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setLong(1, cutoffTimestamp);
             if (!target.equals("*")) {
-                String search = "%" + target.toLowerCase() + "%";
+                String search = target.toLowerCase();
                 stmt.setString(2, search);
                 stmt.setString(3, search);
             }
@@ -267,6 +603,52 @@ public abstract class SqlStorage implements EconomyStorage {
         }
         return logs;
     }
+
+    @Override
+    public List<savage.commoneconomy.util.TransactionLogger.LogEntry> searchLogs(String target, long cutoffTimestamp,
+                                                                               long cursorTimestamp, long cursorId, boolean older, int limit) {
+        List<savage.commoneconomy.util.TransactionLogger.LogEntry> logs = new ArrayList<>();
+        // The plain timestamp bound lets the index seek; the OR only breaks ties within the same millisecond
+        String sql = "SELECT id, timestamp, source, target, amount, type, details FROM " + tablePrefix + "transactions WHERE timestamp > ?"
+                + (older ? " AND timestamp <= ? AND (timestamp < ? OR id < ?)" : " AND timestamp >= ? AND (timestamp > ? OR id > ?)");
+        if (!target.equals("*")) {
+            sql += " AND (LOWER(source) = ? OR LOWER(target) = ?)";
+        }
+        sql += older ? " ORDER BY timestamp DESC, id DESC LIMIT ?" : " ORDER BY timestamp ASC, id ASC LIMIT ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            stmt.setLong(i++, cutoffTimestamp);
+            stmt.setLong(i++, cursorTimestamp);
+            stmt.setLong(i++, cursorTimestamp);
+            stmt.setLong(i++, cursorId);
+            if (!target.equals("*")) {
+                String search = target.toLowerCase();
+                stmt.setString(i++, search);
+                stmt.setString(i++, search);
+            }
+            stmt.setInt(i, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    logs.add(new savage.commoneconomy.util.TransactionLogger.LogEntry(
+                            rs.getLong("id"),
+                            rs.getLong("timestamp"),
+                            rs.getString("type"),
+                            rs.getString("source"),
+                            rs.getString("target"),
+                            rs.getBigDecimal("amount"),
+                            rs.getString("details")
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return logs;
+    }
+
     @Override
     public List<AccountData> getTopAccounts(int limit) {
         List<AccountData> accounts = new ArrayList<>();
@@ -276,11 +658,7 @@ public abstract class SqlStorage implements EconomyStorage {
             stmt.setInt(1, limit);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    accounts.add(new AccountData(
-                            rs.getString("name"),
-                            rs.getBigDecimal("balance"),
-                            rs.getLong("version")
-                    ));
+                    accounts.add(readAccount(rs));
                 }
             }
         } catch (SQLException e) {
@@ -294,7 +672,7 @@ public abstract class SqlStorage implements EconomyStorage {
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, uuid.toString());
+            bindUuid(stmt, 1, uuid);
             stmt.executeUpdate();
             
         } catch (SQLException e) {
@@ -7,6 +7,10 @@ import net.fabricmc.loader.api.FabricLoader;
 import java.nio.file.Path;
 import org.sqlite.SQLiteConfig;
 import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
 
 public class SqliteStorage extends SqlStorage {
 
@@ -50,4 +54,71 @@ public class SqliteStorage extends SqlStorage {
                 "details VARCHAR(255)" +
                 ")";
     }
+
+    // SQLite 3.35+ supports UPDATE ... RETURNING
+    @Override
+    protected boolean supportsReturning() {
+        return true;
+    }
+
+    @Override
+    protected List<String> getSchemaMigrations() {
+        return List.of(
+                "CREATE INDEX IF NOT EXISTS " + tablePrefix + "accounts_name_idx ON " + tablePrefix + "accounts (LOWER(name))",
+                "CREATE INDEX IF NOT EXISTS " + tablePrefix + "accounts_balance_idx ON " + tablePrefix + "accounts (balance)",
+                "CREATE INDEX IF NOT EXISTS " + tablePrefix + "transactions_time_idx ON " + tablePrefix + "transactions (timestamp)",
+                "CREATE INDEX IF NOT EXISTS " + tablePrefix + "transactions_source_idx ON " + tablePrefix + "transactions (LOWER(source), timestamp)",
+                "CREATE INDEX IF NOT EXISTS " + tablePrefix + "transactions_target_idx ON " + tablePrefix + "transactions (LOWER(target), timestamp)"
+        );
+    }
+
+    @Override
+    protected String getBinaryUuidType() {
+        return "BLOB";
+    }
+
+    @Override
+    protected void migrateToBinaryUuids(Connection conn) throws SQLException {
+        // SQLite can't change a column type, so copy into a new table and swap it in one transaction
+        String table = tablePrefix + "accounts";
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement stmt = conn.prepareStatement("DROP TABLE IF EXISTS " + table + "_new")) {
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "CREATE TABLE " + table + "_new (" +
+                            "uuid BLOB PRIMARY KEY, " +
+                            "name VARCHAR(16) NOT NULL, " +
+                            "balance DECIMAL(20, 2) NOT NULL, " +
+                            "version BIGINT DEFAULT 0" +
+                            ")")) {
+                stmt.executeUpdate();
+            }
+            // unhex() needs SQLite 3.41+, which the bundled driver ships
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO " + table + "_new (uuid, name, balance, version) " +
+                            "SELECT unhex(replace(uuid, '-', '')), name, balance, version FROM " + table)) {
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("DROP TABLE " + table)) {
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE " + table + "_new RENAME TO " + table)) {
+                stmt.executeUpdate();
+            }
+            // Dropping the old table took its indexes with it
+            for (String migration : getSchemaMigrations()) {
+                try (PreparedStatement stmt = conn.prepareStatement(migration)) {
+                    stmt.executeUpdate();
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
 }
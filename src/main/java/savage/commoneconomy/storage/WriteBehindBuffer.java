@@ -0,0 +1,132 @@
+package savage.commoneconomy.storage;
+
+import savage.commoneconomy.EconomyManager.AccountData;
+import savage.commoneconomy.SavsCommonEconomy;
+import savage.commoneconomy.config.EconomyConfig;
+import savage.commoneconomy.util.Money;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Coalesces balance deltas per account and writes them to storage in batches
+ */
+public class WriteBehindBuffer {
+    private final EconomyStorage storage;
+    private final EconomyConfig.WriteBehindConfig config;
+    private final ScheduledExecutorService scheduler;
+    // Loads hold the read lock, flushes the write lock, so a load never sees storage
+    // and the pending map disagree about a batch that is mid-flush
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private Map<UUID, Long> pending = new HashMap<>();
+    private int pendingOps;
+    private boolean flushQueued;
+
+    public WriteBehindBuffer(EconomyStorage storage, EconomyConfig.WriteBehindConfig config) {
+        this.storage = storage;
+        this.config = config;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Savs-Economy-WriteBehind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, config.maxStalenessMs, config.maxStalenessMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void enqueue(UUID uuid, long delta) {
+        boolean flushNow = false;
+        synchronized (this) {
+            pending.merge(uuid, delta, Money::add);
+            pendingOps++;
+            if (pendingOps >= config.maxPendingOps && !flushQueued) {
+                flushQueued = true;
+                flushNow = true;
+            }
+        }
+        if (flushNow && !scheduler.isShutdown()) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    // Reads the account from storage with any not-yet-flushed deltas applied on top
+    public AccountData load(UUID uuid) {
+        flushLock.readLock().lock();
+        try {
+            AccountData data = storage.getAccount(uuid);
+            if (data == null) {
+                return null;
+            }
+            Long delta;
+            synchronized (this) {
+                delta = pending.get(uuid);
+            }
+            return delta == null ? data : new AccountData(data.name, Money.add(data.balance, delta), data.version);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    public boolean flush() {
+        flushLock.writeLock().lock();
+        try {
+            Map<UUID, Long> batch;
+            synchronized (this) {
+                flushQueued = false;
+                if (pending.isEmpty()) {
+                    return true;
+                }
+                batch = pending;
+                pending = new HashMap<>();
+                pendingOps = 0;
+            }
+
+            // Deltas that cancelled out don't need a write
+            batch.values().removeIf(delta -> delta == 0);
+            if (batch.isEmpty()) {
+                return true;
+            }
+
+            boolean written;
+            try {
+                written = storage.applyDeltas(batch);
+            } catch (Exception e) {
+                SavsCommonEconomy.LOGGER.error("Failed to flush write-behind balances", e);
+                written = false;
+            }
+
+            if (!written) {
+                // Keep the deltas so the next flush retries them
+                synchronized (this) {
+                    batch.forEach((uuid, delta) -> pending.merge(uuid, delta, Money::add));
+                    pendingOps += batch.size();
+                }
+                SavsCommonEconomy.LOGGER.warn("Write-behind flush failed, " + batch.size() + " account(s) will be retried");
+            }
+            return written;
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (!flush()) {
+            synchronized (this) {
+                // Last resort so an admin can reconcile by hand
+                pending.forEach((uuid, delta) -> SavsCommonEconomy.LOGGER.error("Unflushed balance delta: " + uuid + " " + Money.toPlainString(delta)));
+            }
+        }
+    }
+}
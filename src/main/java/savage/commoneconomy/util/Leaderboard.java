@@ -0,0 +1,329 @@
+package savage.commoneconomy.util;
+
+import savage.commoneconomy.EconomyManager.AccountData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Accounts kept sorted by balance, highest first, in a size-augmented treap so rank and page lookups are O(log n)
+ */
+public class Leaderboard {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Node> byAccount = new HashMap<>();
+    private Node root;
+    private long updates; // Counts applied updates; nodes carry the count of their last one
+
+    // Records a new balance; a null name keeps the one already known. Versions older than the one
+    // recorded are ignored, 0 means unknown and always applies.
+    public void update(UUID uuid, String name, long balance, long version) {
+        lock.writeLock().lock();
+        try {
+            Node old = byAccount.get(uuid);
+            if (name == null) {
+                if (old == null) {
+                    return;
+                }
+                name = old.name;
+            }
+            if (old != null) {
+                if (version > 0 && version < old.version) {
+                    return;
+                }
+                if (version == 0) {
+                    version = old.version;
+                }
+                if (old.balance == balance) {
+                    old.name = name; // Position unchanged
+                    old.version = version;
+                    old.stamp = ++updates;
+                    return;
+                }
+                root = delete(root, old);
+            }
+            Node node = new Node(uuid, name, balance, version);
+            node.stamp = ++updates;
+            root = insert(root, node);
+            byAccount.put(uuid, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID uuid) {
+        lock.writeLock().lock();
+        try {
+            Node old = byAccount.remove(uuid);
+            if (old != null) {
+                root = delete(root, old);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(UUID uuid) {
+        lock.readLock().lock();
+        try {
+            return byAccount.containsKey(uuid);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Marks the current point in the update sequence, see retain
+    public long mark() {
+        lock.readLock().lock();
+        try {
+            return updates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Removes the accounts outside keep that haven't been updated since mark, e.g. ones a full re-read of storage
+    // no longer found; anything updated while that read was running stays
+    public void retain(java.util.Set<UUID> keep, long mark) {
+        lock.writeLock().lock();
+        try {
+            java.util.Iterator<Node> nodes = byAccount.values().iterator();
+            while (nodes.hasNext()) {
+                Node node = nodes.next();
+                if (node.stamp <= mark && !keep.contains(node.uuid)) {
+                    root = delete(root, node);
+                    nodes.remove();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            byAccount.clear();
+            root = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Up to limit accounts starting at the given 0-based position
+    public List<AccountData> page(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<AccountData> page = new ArrayList<>(Math.min(limit, 64));
+            collect(root, offset, limit, page);
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 1-based position of the account, or 0 if it isn't ranked
+    public int rank(UUID uuid) {
+        lock.readLock().lock();
+        try {
+            Node target = byAccount.get(uuid);
+            if (target == null) {
+                return 0;
+            }
+            int rank = 0;
+            Node node = root;
+            while (node != null) {
+                int cmp = compare(target, node);
+                if (cmp < 0) {
+                    node = node.left;
+                } else if (cmp > 0) {
+                    rank += size(node.left) + 1;
+                    node = node.right;
+                } else {
+                    return rank + size(node.left) + 1;
+                }
+            }
+            return 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Position, entry and board size read together, so they agree with each other; null if the account isn't ranked
+    public Ranked ranked(UUID uuid) {
+        lock.readLock().lock();
+        try {
+            int rank = rank(uuid);
+            if (rank == 0) {
+                return null;
+            }
+            Node node = byAccount.get(uuid);
+            return new Ranked(rank, size(root), new AccountData(node.name, node.balance));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The given 1-based page, clamped to the pages there are, together with the page count
+    public Page pageOf(int page, int pageSize) {
+        lock.readLock().lock();
+        try {
+            int totalPages = Math.max(1, (size(root) + pageSize - 1) / pageSize);
+            int current = Math.max(1, Math.min(page, totalPages));
+            return new Page(current, totalPages, page((current - 1) * pageSize, pageSize));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // In-order walk that skips whole subtrees lying before the offset
+    private static void collect(Node node, int offset, int limit, List<AccountData> out) {
+        if (node == null || out.size() >= limit) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (offset < leftSize) {
+            collect(node.left, offset, limit, out);
+        }
+        if (offset <= leftSize && out.size() < limit) {
+            out.add(new AccountData(node.name, node.balance));
+        }
+        collect(node.right, Math.max(0, offset - leftSize - 1), limit, out);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node delete(Node node, Node removed) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(removed, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, removed);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, removed);
+        } else {
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        left.update();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        right.update();
+        return right;
+    }
+
+    // Highest balance first, ties broken by UUID so every account has a distinct position
+    private static int compare(Node a, Node b) {
+        int byBalance = Long.compare(b.balance, a.balance);
+        return byBalance != 0 ? byBalance : a.uuid.compareTo(b.uuid);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    public static final class Ranked {
+        public final int rank;
+        public final int total;
+        public final AccountData account;
+
+        Ranked(int rank, int total, AccountData account) {
+            this.rank = rank;
+            this.total = total;
+            this.account = account;
+        }
+    }
+
+    public static final class Page {
+        public final int page;
+        public final int totalPages;
+        public final List<AccountData> accounts;
+
+        Page(int page, int totalPages, List<AccountData> accounts) {
+            this.page = page;
+            this.totalPages = totalPages;
+            this.accounts = accounts;
+        }
+    }
+
+    private static final class Node {
+        final UUID uuid;
+        final long balance;
+        long version;
+        long stamp;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        String name;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(UUID uuid, String name, long balance, long version) {
+            this.uuid = uuid;
+            this.name = name;
+            this.balance = balance;
+            this.version = version;
+        }
+
+        void update() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+}
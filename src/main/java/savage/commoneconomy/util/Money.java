@@ -0,0 +1,106 @@
+package savage.commoneconomy.util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amounts as a long count of minor units (hundredths), so balance arithmetic doesn't allocate.
+ * Every operation throws ArithmeticException on overflow instead of wrapping around.
+ */
+public final class Money {
+    public static final int SCALE = 2;
+    public static final long MINOR_PER_UNIT = 100;
+
+    private Money() {
+    }
+
+    // Rounds to the nearest minor unit, half up
+    public static long fromBigDecimal(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    // False if the amount has digits below the minor unit (e.g. 0.001), which fromBigDecimal would round away
+    public static boolean isWhole(BigDecimal amount) {
+        return amount.stripTrailingZeros().scale() <= SCALE;
+    }
+
+    public static BigDecimal toBigDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static long fromDouble(double amount) {
+        return fromBigDecimal(BigDecimal.valueOf(amount));
+    }
+
+    public static long fromUnits(long units) {
+        return Math.multiplyExact(units, MINOR_PER_UNIT);
+    }
+
+    // Whole units, truncated toward zero
+    public static long toUnits(long minor) {
+        return minor / MINOR_PER_UNIT;
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long multiply(long minor, long quantity) {
+        return Math.multiplyExact(minor, quantity);
+    }
+
+    public static long negate(long minor) {
+        return Math.negateExact(minor);
+    }
+
+    // Plain decimal text such as "12.50" or "-0.05"
+    public static String toPlainString(long minor) {
+        if (minor == Long.MIN_VALUE) {
+            return toBigDecimal(minor).toPlainString();
+        }
+        StringBuilder out = new StringBuilder(24);
+        long abs = Math.abs(minor);
+        if (minor < 0) {
+            out.append('-');
+        }
+        long fraction = abs % MINOR_PER_UNIT;
+        out.append(abs / MINOR_PER_UNIT).append('.');
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction).toString();
+    }
+
+    /**
+     * Stores minor-unit fields as decimal numbers, so JSON files keep the same format as when balances were BigDecimal.
+     */
+    public static class JsonAdapter extends TypeAdapter<Long> {
+        @Override
+        public void write(JsonWriter out, Long value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(toBigDecimal(value));
+            }
+        }
+
+        @Override
+        public Long read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return fromBigDecimal(new BigDecimal(in.nextString()));
+        }
+    }
+}
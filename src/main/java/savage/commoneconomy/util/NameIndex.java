@@ -0,0 +1,54 @@
+package savage.commoneconomy.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Case-insensitive prefix index over account names, used for tab completion
+ */
+public class NameIndex {
+    // Lower-cased name -> name as the player spells it
+    private volatile ConcurrentSkipListMap<String, String> names = new ConcurrentSkipListMap<>();
+
+    public void add(String name) {
+        names.put(name.toLowerCase(), name);
+    }
+
+    public void remove(String name) {
+        names.remove(name.toLowerCase());
+    }
+
+    // Swaps in a freshly loaded set of names
+    public void replaceAll(Collection<String> all) {
+        ConcurrentSkipListMap<String, String> rebuilt = new ConcurrentSkipListMap<>();
+        for (String name : all) {
+            rebuilt.put(name.toLowerCase(), name);
+        }
+        names = rebuilt;
+    }
+
+    // Up to limit names starting with prefix, in alphabetical order
+    public List<String> search(String prefix, int limit) {
+        String key = prefix.toLowerCase();
+        List<String> matches = new ArrayList<>(Math.min(limit, 16));
+        for (Map.Entry<String, String> entry : names.tailMap(key, true).entrySet()) {
+            if (!entry.getKey().startsWith(key) || matches.size() >= limit) {
+                break;
+            }
+            matches.add(entry.getValue());
+        }
+        return matches;
+    }
+
+    public Collection<String> all() {
+        return Collections.unmodifiableCollection(names.values());
+    }
+
+    public int size() {
+        return names.size();
+    }
+}
@@ -1,35 +1,104 @@
 package savage.commoneconomy.util;
 
 import com.google.gson.Gson;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisChannelHandler;
 import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisFuture;
 import io.lettuce.core.RedisURI;
+import io.lettuce.core.XAddArgs;
 import io.lettuce.core.api.StatefulRedisConnection;
-import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
 import io.lettuce.core.pubsub.api.sync.RedisPubSubCommands;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import io.lettuce.core.resource.Delay;
 import savage.commoneconomy.EconomyManager;
 import savage.commoneconomy.SavsCommonEconomy;
 import savage.commoneconomy.config.EconomyConfig;
 
 import java.math.BigDecimal;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class RedisManager {
     private static RedisManager instance;
     private RedisClient redisClient;
+    private ClientResources clientResources;
+    private ScheduledExecutorService supervisor; // Connects, reconnects and resyncs
+    private int reconnectAttempts;
+    // Outage tracking; accounts changed locally while disconnected are resynced once we're back
+    private volatile long outageStartedAt;
+    private volatile long lastOutageMillis;
+    private final AtomicLong outageCount = new AtomicLong();
+    private final Set<UUID> touchedDuringOutage = java.util.concurrent.ConcurrentHashMap.newKeySet();
     private StatefulRedisPubSubConnection<String, String> subConnection; // For subscribing
-    private StatefulRedisConnection<String, String> pubConnection; // For publishing
+    private StatefulRedisConnection<String, String> pubConnection; // For publishing, only used by the publisher thread
     private final Gson gson = new Gson();
     private final EconomyConfig.RedisConfig config;
-    private boolean connected = false;
+    private volatile boolean connected = false;
+    private volatile boolean shuttingDown;
     private net.minecraft.server.MinecraftServer server;
 
+    // Outgoing messages wait here until the publisher thread sends them as one pipelined batch
+    private final Object publishLock = new Object();
+    private Map<UUID, TransactionMessage> pendingUpdates = new LinkedHashMap<>(); // Balance-only, newest per account wins
+    private List<TransactionMessage> pendingMessages = new ArrayList<>(); // Carry chat text, so each one is delivered
+    private ScheduledExecutorService publisher;
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    // Incoming side: we subscribe to the channel we publish on, so our own messages come back and are skipped
+    private final String nodeId;
+    private RedisStreamConsumer.StreamState streamState; // STREAMS mode only
+    private RedisStreamConsumer streamConsumer;
+    private final java.util.concurrent.ConcurrentLinkedQueue<TransactionMessage> inbound = new java.util.concurrent.ConcurrentLinkedQueue<>();
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong ownMessagesIgnored = new AtomicLong();
+    private final java.util.concurrent.atomic.AtomicLongArray outcomeCounts = new java.util.concurrent.atomic.AtomicLongArray(EconomyManager.RemoteUpdate.values().length);
+
     private RedisManager(EconomyConfig.RedisConfig config) {
         this.config = config;
+        String id = config.nodeId;
+        if (isStreamMode()) {
+            // The consumer group is named after the node, so the id has to survive restarts
+            streamState = RedisStreamConsumer.StreamState.load();
+            if ((id == null || id.isBlank()) && streamState.nodeId != null) {
+                id = streamState.nodeId;
+            }
+        }
+        this.nodeId = id == null || id.isBlank() ? UUID.randomUUID().toString() : id;
+        if (streamState != null) {
+            streamState.nodeId = nodeId;
+        }
+    }
+
+    private boolean isStreamMode() {
+        return "STREAMS".equalsIgnoreCase(config.mode);
     }
     
     public void setServer(net.minecraft.server.MinecraftServer server) {
         this.server = server;
+        if (shuttingDown && config.enabled) {
+            // An integrated server started again in the same JVM after shutdown()
+            shuttingDown = false;
+            start();
+        }
     }
 
     public static RedisManager getInstance() {
@@ -37,25 +106,113 @@ public class RedisManager {
             EconomyConfig.RedisConfig config = EconomyManager.getInstance().getConfig().redis;
             instance = new RedisManager(config);
             if (config.enabled) {
-                instance.connect();
+                instance.start();
             }
         }
         return instance;
     }
 
-    private void connect() {
+    /**
+     * Connects in the background. Waits at most connectTimeoutMs for the first attempt so an unreachable Redis
+     * can't hold up server startup; failed attempts are retried with jittered exponential backoff.
+     */
+    private void start() {
+        supervisor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Savs-Economy-RedisSupervisor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Savs-Economy-RedisPublish");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher.scheduleWithFixedDelay(this::flushPublishes, config.publishIntervalMs, config.publishIntervalMs, TimeUnit.MILLISECONDS);
+
+        // Until the first connect succeeds this counts as an outage, so early changes are resynced too
+        outageStartedAt = System.currentTimeMillis();
+        java.util.concurrent.CompletableFuture<Void> firstAttempt = new java.util.concurrent.CompletableFuture<>();
+        supervisor.execute(() -> {
+            tryConnect();
+            firstAttempt.complete(null);
+        });
+        try {
+            firstAttempt.get(config.connectTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.TimeoutException e) {
+            SavsCommonEconomy.LOGGER.warn("Redis did not answer within " + config.connectTimeoutMs + "ms, still connecting in the background");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (java.util.concurrent.ExecutionException e) {
+            // tryConnect handles its own failures
+        }
+    }
+
+    private void tryConnect() {
+        if (shuttingDown) {
+            return;
+        }
         try {
+            connect();
+            reconnectAttempts = 0;
+        } catch (Exception e) {
+            closeConnections();
+            long delay = nextBackoffMs(reconnectAttempts++);
+            if (reconnectAttempts == 1) {
+                SavsCommonEconomy.LOGGER.warn("Failed to connect to Redis. Continuing without real-time sync and retrying in the background.", e);
+            } else if (config.debugLogging) {
+                SavsCommonEconomy.LOGGER.info("Redis: Connect attempt " + reconnectAttempts + " failed, next in " + delay + "ms");
+            }
+            supervisor.schedule(this::tryConnect, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Exponential backoff with full jitter, so a network of servers doesn't reconnect in lockstep
+    private long nextBackoffMs(int attempt) {
+        long ceiling = Math.min(config.reconnectMaxDelayMs, config.reconnectMinDelayMs << Math.min(attempt, 20));
+        return config.reconnectMinDelayMs + ThreadLocalRandom.current().nextLong(Math.max(1, ceiling - config.reconnectMinDelayMs + 1));
+    }
+
+    private void connect() {
+        if (redisClient == null) {
             RedisURI.Builder uriBuilder = RedisURI.builder()
                     .withHost(config.host)
-                    .withPort(config.port);
+                    .withPort(config.port)
+                    .withTimeout(Duration.ofMillis(config.connectTimeoutMs));
 
             if (config.password != null && !config.password.isEmpty()) {
                 uriBuilder.withPassword(config.password.toCharArray());
             }
 
             RedisURI redisURI = uriBuilder.build();
-            redisClient = RedisClient.create(redisURI);
-            
+            // Lettuce re-establishes dropped connections itself; give it the same jittered backoff
+            clientResources = DefaultClientResources.builder()
+                    .reconnectDelay(Delay.fullJitter(Duration.ofMillis(config.reconnectMinDelayMs), Duration.ofMillis(config.reconnectMaxDelayMs),
+                            config.reconnectMinDelayMs, TimeUnit.MILLISECONDS))
+                    .build();
+            redisClient = RedisClient.create(clientResources, redisURI);
+            redisClient.addListener(new RedisConnectionStateListener() {
+                @Override
+                public void onRedisDisconnected(RedisChannelHandler<?, ?> connection) {
+                    onDisconnected();
+                }
+
+                @Override
+                public void onRedisConnected(RedisChannelHandler<?, ?> connection, SocketAddress socketAddress) {
+                    if (!shuttingDown) {
+                        supervisor.execute(RedisManager.this::checkRecovered);
+                    }
+                }
+            });
+        }
+
+        // Separate connection for publishing (sending messages); commands are flushed by hand so a batch goes out in one write
+        pubConnection = redisClient.connect();
+        pubConnection.setAutoFlushCommands(false);
+
+        if (isStreamMode()) {
+            streamConsumer = new RedisStreamConsumer(this, redisClient, config, streamState, nodeId);
+            streamConsumer.start();
+        } else {
             // Connection for subscribing (receiving messages)
             subConnection = redisClient.connectPubSub();
             subConnection.addListener(new io.lettuce.core.pubsub.RedisPubSubAdapter<String, String>() {
@@ -66,80 +223,306 @@ public class RedisManager {
             });
             RedisPubSubCommands<String, String> subCommands = subConnection.sync();
             subCommands.subscribe(config.channel);
-            
-            // Separate connection for publishing (sending messages)
-            pubConnection = redisClient.connect();
-            
+        }
+
+        if (isStreamMode()) {
+            SavsCommonEconomy.LOGGER.info("Redis connected successfully on stream: " + config.streamKey + " as node " + nodeId);
+        } else {
+            SavsCommonEconomy.LOGGER.info("Redis Pub/Sub connected successfully on channel: " + config.channel + " as node " + nodeId);
+        }
+        checkRecovered();
+    }
+
+    private synchronized void onDisconnected() {
+        if (connected && !shuttingDown) {
+            connected = false;
+            outageStartedAt = System.currentTimeMillis();
+            outageCount.incrementAndGet();
+            SavsCommonEconomy.LOGGER.warn("Lost connection to Redis, reconnecting in the background");
+        }
+    }
+
+    // Runs on the supervisor thread once every connection is back up
+    private void checkRecovered() {
+        synchronized (this) {
+            if (connected || shuttingDown || pubConnection == null || !pubConnection.isOpen()
+                    || (subConnection != null && !subConnection.isOpen())) {
+                return;
+            }
             connected = true;
-            SavsCommonEconomy.LOGGER.info("Redis Pub/Sub connected successfully on channel: " + config.channel);
+            lastOutageMillis = System.currentTimeMillis() - outageStartedAt;
+            outageStartedAt = 0;
+        }
+        if (outageCount.get() > 0) {
+            SavsCommonEconomy.LOGGER.info("Redis connection restored after " + lastOutageMillis + "ms");
+        }
+        resyncAfterOutage();
+    }
+
+    // Brings caches back in line without dropping everything: only accounts that changed here during the outage
+    // (and, with pub/sub, online players' accounts, since other servers' updates were lost) are reloaded in one go
+    private void resyncAfterOutage() {
+        Set<UUID> touched = new HashSet<>();
+        for (java.util.Iterator<UUID> it = touchedDuringOutage.iterator(); it.hasNext(); ) {
+            touched.add(it.next());
+            it.remove();
+        }
+        Set<UUID> reload = new HashSet<>(touched);
+        if (!isStreamMode()) {
+            reload.addAll(EconomyManager.getInstance().getPinnedAccounts());
+        }
+        if (reload.isEmpty()) {
+            return;
+        }
 
+        try {
+            Map<UUID, EconomyManager.AccountData> fresh = EconomyManager.getInstance().resyncAccounts(reload);
+            // Other servers never heard about our changes, tell them now
+            for (UUID uuid : touched) {
+                EconomyManager.AccountData data = fresh.get(uuid);
+                if (data != null) {
+                    publishBalanceUpdate(uuid, data.balance, data.version);
+                }
+            }
+            SavsCommonEconomy.LOGGER.info("Resynced " + reload.size() + " account(s) after the Redis outage");
         } catch (Exception e) {
-            SavsCommonEconomy.LOGGER.warn("Failed to connect to Redis. Continuing without real-time sync.", e);
-            connected = false;
+            touchedDuringOutage.addAll(touched);
+            SavsCommonEconomy.LOGGER.warn("Failed to resync accounts after the Redis outage", e);
+        }
+    }
+
+    private void closeConnections() {
+        if (streamConsumer != null) {
+            streamConsumer.stop();
+            streamConsumer = null;
+        }
+        if (subConnection != null) {
+            subConnection.close();
+            subConnection = null;
+        }
+        if (pubConnection != null) {
+            pubConnection.close();
+            pubConnection = null;
         }
     }
 
-    public void publishBalanceUpdate(UUID uuid, BigDecimal newBalance) {
-        publishTransaction(uuid, newBalance, null, null, null);
+    // Balances are in minor units, see Money
+    // version is the account version after the change, 0 if it isn't known
+    public void publishBalanceUpdate(UUID uuid, long newBalance, long version) {
+        publishTransaction(uuid, newBalance, version, null, null, null);
     }
-    
+
     public void publishTransaction(UUID targetUuid, BigDecimal newBalance, String type, String sourcePlayer, String message) {
-        if (!connected || pubConnection == null) return;
+        long balance = Money.fromBigDecimal(newBalance);
+        // Commands pass the balance they just read back; stamp it with the cached version if that's the same state
+        EconomyManager.AccountData cached = EconomyManager.getInstance().getCachedAccount(targetUuid);
+        long version = cached != null && cached.balance == balance ? cached.version : 0;
+        publishTransaction(targetUuid, balance, version, type, sourcePlayer, message);
+    }
+    
+    // Queues the message and returns at once; the publisher thread sends it within publishIntervalMs
+    public void publishTransaction(UUID targetUuid, long newBalance, long version, String type, String sourcePlayer, String message) {
+        if (!connected) {
+            // Nobody hears about it now; resynced when the connection is back
+            touchedDuringOutage.add(targetUuid);
+            return;
+        }
+
+        TransactionMessage msg = new TransactionMessage(
+            nodeId,
+            targetUuid.toString(), 
+            newBalance, 
+            version,
+            type, 
+            sourcePlayer, 
+            message
+        );
+        synchronized (publishLock) {
+            boolean replacesPending = pendingUpdates.containsKey(targetUuid);
+            if (!replacesPending && pendingUpdates.size() + pendingMessages.size() >= config.publishQueueSize) {
+                if (droppedCount.getAndIncrement() % 1000 == 0) {
+                    SavsCommonEconomy.LOGGER.warn("Redis publish queue is full, dropping updates (" + droppedCount.get() + " so far)");
+                }
+                return;
+            }
+            // A pending update for the account is folded into this one, which carries the newer balance
+            TransactionMessage replaced = message == null ? pendingUpdates.put(targetUuid, msg) : pendingUpdates.remove(targetUuid);
+            if (replaced != null) {
+                coalescedCount.incrementAndGet();
+                if (replaced.version > 0 && msg.version > 0) {
+                    // Receivers that hadn't seen the replaced change still apply this one in place
+                    msg.baseVersion = Math.min(msg.baseVersion, replaced.baseVersion);
+                }
+            }
+            if (message != null) {
+                pendingMessages.add(msg);
+            }
+        }
+    }
+
+    private void flushPublishes() {
+        List<TransactionMessage> batch;
+        synchronized (publishLock) {
+            if (pendingMessages.isEmpty() && pendingUpdates.isEmpty()) {
+                return;
+            }
+            // Chat messages first; any balance-only update still pending was queued after them
+            batch = new ArrayList<>(pendingMessages.size() + pendingUpdates.size());
+            batch.addAll(pendingMessages);
+            batch.addAll(pendingUpdates.values());
+            pendingMessages = new ArrayList<>();
+            pendingUpdates = new LinkedHashMap<>();
+        }
+        if (!connected || pubConnection == null) {
+            markUnsent(batch);
+            return;
+        }
 
         try {
-            TransactionMessage msg = new TransactionMessage(
-                targetUuid.toString(), 
-                newBalance, 
-                type, 
-                sourcePlayer, 
-                message
-            );
-            String json = gson.toJson(msg);
-            RedisCommands<String, String> commands = pubConnection.sync();
-            commands.publish(config.channel, json);
+            RedisAsyncCommands<String, String> commands = pubConnection.async();
+            RedisFuture<?>[] futures = new RedisFuture<?>[batch.size()];
+            // Each XADD also trims entries older than the retention window
+            XAddArgs streamArgs = isStreamMode()
+                    ? XAddArgs.Builder.minId((System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(config.streamRetentionMinutes)) + "-0").approximateTrimming()
+                    : null;
+            for (int i = 0; i < futures.length; i++) {
+                String json = gson.toJson(batch.get(i));
+                futures[i] = streamArgs != null
+                        ? commands.xadd(config.streamKey, streamArgs, RedisStreamConsumer.FIELD, json)
+                        : commands.publish(config.channel, json);
+            }
+            pubConnection.flushCommands();
+            if (!LettuceFutures.awaitAll(Duration.ofSeconds(5), futures)) {
+                SavsCommonEconomy.LOGGER.warn("Timed out publishing " + futures.length + " message(s) to Redis");
+                markUnsent(batch);
+                return;
+            }
+            publishedCount.addAndGet(futures.length);
             if (config.debugLogging) {
-                SavsCommonEconomy.LOGGER.info("Redis: Published transaction for " + targetUuid + " -> $" + newBalance);
+                SavsCommonEconomy.LOGGER.info("Redis: Published " + futures.length + " transaction message(s)");
             }
         } catch (Exception e) {
-            SavsCommonEconomy.LOGGER.warn("Failed to publish transaction to Redis", e);
+            SavsCommonEconomy.LOGGER.warn("Failed to publish " + batch.size() + " transaction message(s) to Redis", e);
+            markUnsent(batch);
         }
     }
 
-    private void handleMessage(String json) {
+    // The accounts in a batch that may not have gone out get resynced after the next outage
+    private void markUnsent(List<TransactionMessage> batch) {
+        for (TransactionMessage message : batch) {
+            touchedDuringOutage.add(UUID.fromString(message.uuid));
+        }
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    // Updates merged into a later one for the same account before they were sent
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getOutageCount() {
+        return outageCount.get();
+    }
+
+    // Length of the ongoing outage, or 0 while connected
+    public long getCurrentOutageMillis() {
+        long started = outageStartedAt;
+        return connected || started == 0 ? 0 : System.currentTimeMillis() - started;
+    }
+
+    public long getLastOutageMillis() {
+        return lastOutageMillis;
+    }
+
+    public int getPendingResyncCount() {
+        return touchedDuringOutage.size();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // Messages from other servers that were handled
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    // Our own messages echoed back by the channel; each one used to cost a cache invalidation
+    public long getOwnMessagesIgnored() {
+        return ownMessagesIgnored.get();
+    }
+
+    public long getOutcomeCount(EconomyManager.RemoteUpdate outcome) {
+        return outcomeCounts.get(outcome.ordinal());
+    }
+
+    // Runs on Lettuce's event loop (or the stream reader), so it only parses and queues; the server thread does the rest in processInbound
+    void handleMessage(String json) {
         try {
             TransactionMessage message = gson.fromJson(json, TransactionMessage.class);
-            UUID uuid = UUID.fromString(message.uuid);
+            if (nodeId.equals(message.origin)) {
+                // Already applied locally when it was published
+                ownMessagesIgnored.incrementAndGet();
+                return;
+            }
+            message.target = UUID.fromString(message.uuid);
+            inbound.add(message);
+        } catch (Exception e) {
+            SavsCommonEconomy.LOGGER.warn("Failed to handle Redis message: " + json, e);
+        }
+    }
 
-            // Invalidate local cache so next read fetches fresh data
-            EconomyManager.getInstance().invalidateCache(uuid);
-            
-            // Notify player if they're online
-            net.minecraft.server.network.ServerPlayerEntity player = getOnlinePlayer(uuid);
+    /**
+     * Applies queued messages on the server thread, called once per tick. Stops after tickBudgetMicros and leaves the
+     * rest for the next tick. Chat messages for one player are sent together as a single message.
+     */
+    public void processInbound() {
+        if (inbound.isEmpty()) {
+            return;
+        }
+        long deadline = System.nanoTime() + config.tickBudgetMicros * 1000;
+        Map<UUID, List<String>> notifications = null;
+        TransactionMessage message;
+        int applied = 0;
+        // At least one per tick, so a budget of 0 or less still drains the queue
+        while ((applied == 0 || System.nanoTime() < deadline) && (message = inbound.poll()) != null) {
+            applied++;
+            receivedCount.incrementAndGet();
+            EconomyManager.RemoteUpdate outcome = EconomyManager.getInstance().applyRemoteUpdate(message.target, message.balance, message.baseVersion, message.version);
+            outcomeCounts.incrementAndGet(outcome.ordinal());
             if (config.debugLogging) {
-                SavsCommonEconomy.LOGGER.info("Redis: Looking for player " + uuid + ", found: " + (player != null));
+                SavsCommonEconomy.LOGGER.info("Redis: Received transaction for " + message.target + " -> $" + (message.balance != null ? Money.toPlainString(message.balance) : "?") + " v" + message.version + " (" + outcome + ")");
             }
-            if (player != null && message.chatMessage != null) {
-                if (config.debugLogging) {
-                    SavsCommonEconomy.LOGGER.info("Redis: Sending message to player: " + message.chatMessage);
-                }
-                player.sendMessage(net.minecraft.text.Text.literal(message.chatMessage), false);
-            } else if (config.debugLogging) {
-                if (player == null) {
-                    SavsCommonEconomy.LOGGER.info("Redis: Player not online on this server");
+            if (message.chatMessage != null) {
+                if (notifications == null) {
+                    notifications = new LinkedHashMap<>();
                 }
-                if (message.chatMessage == null) {
-                    SavsCommonEconomy.LOGGER.info("Redis: No chat message in transaction");
-                }
-            }
-            
-            if (config.debugLogging) {
-                SavsCommonEconomy.LOGGER.info("Redis: Received transaction for " + uuid + " -> $" + message.balance + " (cache invalidated)");
+                notifications.computeIfAbsent(message.target, uuid -> new ArrayList<>(2)).add(message.chatMessage);
             }
+        }
 
-        } catch (Exception e) {
-            SavsCommonEconomy.LOGGER.warn("Failed to handle Redis message: " + json, e);
+        if (notifications != null) {
+            for (Map.Entry<UUID, List<String>> entry : notifications.entrySet()) {
+                net.minecraft.server.network.ServerPlayerEntity player = getOnlinePlayer(entry.getKey());
+                if (player != null) {
+                    player.sendMessage(net.minecraft.text.Text.literal(String.join("\n", entry.getValue())), false);
+                } else if (config.debugLogging) {
+                    SavsCommonEconomy.LOGGER.info("Redis: Player " + entry.getKey() + " not online on this server");
+                }
+            }
         }
     }
+
+    public int getInboundBacklog() {
+        return inbound.size();
+    }
     
     private net.minecraft.server.network.ServerPlayerEntity getOnlinePlayer(UUID uuid) {
         if (server == null) return null;
@@ -147,14 +530,29 @@ public class RedisManager {
     }
 
     public void shutdown() {
-        if (subConnection != null) {
-            subConnection.close();
+        shuttingDown = true;
+        if (supervisor != null) {
+            supervisor.shutdownNow();
         }
-        if (pubConnection != null) {
-            pubConnection.close();
+        if (publisher != null) {
+            publisher.shutdown();
+            try {
+                publisher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Send whatever the last scheduled run didn't pick up
+            flushPublishes();
         }
+        closeConnections();
+        connected = false;
         if (redisClient != null) {
             redisClient.shutdown();
+            redisClient = null;
+        }
+        if (clientResources != null) {
+            clientResources.shutdown();
+            clientResources = null;
         }
     }
 
@@ -163,15 +561,25 @@ public class RedisManager {
     }
 
     private static class TransactionMessage {
+        String origin; // nodeId of the sending server
         String uuid;
-        BigDecimal balance;
+        // Sent as a decimal number so servers on older versions can still read it
+        @com.google.gson.annotations.JsonAdapter(Money.JsonAdapter.class)
+        Long balance;
+        // Account version after the change, and the version it applies on top of; 0 when unknown (or from an older server)
+        long version;
+        long baseVersion;
         String type; // "pay", "give", "take", etc.
         String sourcePlayer; // Who initiated the transaction
         String chatMessage; // The message to show the player
+        transient UUID target; // uuid, parsed on receipt
 
-        TransactionMessage(String uuid, BigDecimal balance, String type, String sourcePlayer, String chatMessage) {
+        TransactionMessage(String origin, String uuid, Long balance, long version, String type, String sourcePlayer, String chatMessage) {
+            this.origin = origin;
             this.uuid = uuid;
             this.balance = balance;
+            this.version = version;
+            this.baseVersion = version > 0 ? version - 1 : 0;
             this.type = type;
             this.sourcePlayer = sourcePlayer;
             this.chatMessage = chatMessage;
@@ -0,0 +1,206 @@
+package savage.commoneconomy.util;
+
+import com.google.gson.Gson;
+import io.lettuce.core.Consumer;
+import io.lettuce.core.Limit;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisBusyException;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XGroupCreateArgs;
+import io.lettuce.core.XReadArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import net.fabricmc.loader.api.FabricLoader;
+import savage.commoneconomy.EconomyManager;
+import savage.commoneconomy.SavsCommonEconomy;
+import savage.commoneconomy.config.EconomyConfig;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Reads the update stream through a consumer group owned by this server, so whatever was published while it was
+ * offline or disconnected is replayed once it is back
+ */
+class RedisStreamConsumer {
+    static final String FIELD = "m";
+    private static final String CONSUMER = "main";
+    private static final long STATE_SAVE_INTERVAL_MS = 5000;
+
+    private final RedisManager manager;
+    private final EconomyConfig.RedisConfig config;
+    private final StreamState state;
+    private final String group;
+    private final StatefulRedisConnection<String, String> connection;
+    private volatile boolean running;
+    private Thread thread;
+    private long lastStateSave;
+
+    RedisStreamConsumer(RedisManager manager, RedisClient client, EconomyConfig.RedisConfig config, StreamState state, String nodeId) {
+        this.manager = manager;
+        this.config = config;
+        this.state = state;
+        this.group = "savs-economy-" + nodeId;
+        // Own connection, XREADGROUP blocks it while waiting
+        this.connection = client.connect();
+    }
+
+    void start() {
+        running = true;
+        thread = new Thread(this::run, "Savs-Economy-RedisStream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join(5000); // At most one blocking read to wait out
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        connection.close();
+        state.save();
+    }
+
+    private void run() {
+        RedisCommands<String, String> commands = connection.sync();
+        boolean attached = false;
+        while (running) {
+            try {
+                if (!attached) {
+                    attach(commands);
+                    attached = true;
+                }
+                List<StreamMessage<String, String>> batch = commands.xreadgroup(Consumer.from(group, CONSUMER),
+                        XReadArgs.Builder.count(config.streamBatchSize).block(1000),
+                        XReadArgs.StreamOffset.lastConsumed(config.streamKey));
+                deliver(commands, batch);
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                // Lettuce reconnects on its own; attach again afterwards to pick up where the group left off
+                attached = false;
+                SavsCommonEconomy.LOGGER.warn("Reading the Redis stream failed, retrying: " + e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Joins our consumer group, creating it at the last entry we saw, and replays what was delivered but never acknowledged
+    private void attach(RedisCommands<String, String> commands) {
+        String start = state.lastId != null ? state.lastId : "$";
+        try {
+            commands.xgroupCreate(XReadArgs.StreamOffset.from(config.streamKey, start), group, XGroupCreateArgs.Builder.mkstream(true));
+        } catch (RedisBusyException e) {
+            // The group already exists and knows where we left off
+        }
+
+        if (state.lastId != null) {
+            List<StreamMessage<String, String>> oldest = commands.xrange(config.streamKey, Range.create("-", "+"), Limit.from(1));
+            if (!oldest.isEmpty() && compareIds(oldest.get(0).getId(), state.lastId) > 0) {
+                // The last entry we saw has been trimmed, so others after it may be gone as well
+                SavsCommonEconomy.LOGGER.warn("Missed updates have been trimmed from the Redis stream, dropping cached balances");
+                EconomyManager.getInstance().invalidateAllAccounts();
+            }
+        }
+
+        while (running) {
+            List<StreamMessage<String, String>> pending = commands.xreadgroup(Consumer.from(group, CONSUMER),
+                    XReadArgs.Builder.count(config.streamBatchSize),
+                    XReadArgs.StreamOffset.from(config.streamKey, "0"));
+            if (pending.isEmpty()) {
+                break;
+            }
+            deliver(commands, pending);
+        }
+    }
+
+    private void deliver(RedisCommands<String, String> commands, List<StreamMessage<String, String>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        String[] ids = new String[batch.size()];
+        for (int i = 0; i < ids.length; i++) {
+            StreamMessage<String, String> entry = batch.get(i);
+            ids[i] = entry.getId();
+            String json = entry.getBody().get(FIELD);
+            if (json != null) {
+                manager.handleMessage(json);
+            }
+        }
+        // Cached balances only live in memory, so once queued an entry needs no redelivery after a crash
+        commands.xack(config.streamKey, group, ids);
+
+        state.lastId = ids[ids.length - 1];
+        long now = System.currentTimeMillis();
+        if (now - lastStateSave >= STATE_SAVE_INTERVAL_MS) {
+            lastStateSave = now;
+            state.save();
+        }
+    }
+
+    // Stream ids are "<millis>-<sequence>"
+    static int compareIds(String a, String b) {
+        int dashA = a.indexOf('-');
+        int dashB = b.indexOf('-');
+        int byTime = Long.compare(Long.parseLong(a.substring(0, dashA)), Long.parseLong(b.substring(0, dashB)));
+        return byTime != 0 ? byTime : Long.compare(Long.parseLong(a.substring(dashA + 1)), Long.parseLong(b.substring(dashB + 1)));
+    }
+
+    /**
+     * Node id and last stream entry handled, kept across restarts in redis-stream.json
+     */
+    static class StreamState {
+        private static final Gson GSON = new Gson();
+
+        String nodeId;
+        volatile String lastId;
+
+        private static Path path() {
+            return FabricLoader.getInstance().getConfigDir().resolve("savs-common-economy").resolve("redis-stream.json");
+        }
+
+        static StreamState load() {
+            Path path = path();
+            if (Files.exists(path)) {
+                try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    StreamState state = GSON.fromJson(reader, StreamState.class);
+                    if (state != null) {
+                        return state;
+                    }
+                } catch (Exception e) {
+                    SavsCommonEconomy.LOGGER.warn("Failed to read " + path.getFileName() + ", starting from the end of the stream", e);
+                }
+            }
+            return new StreamState();
+        }
+
+        synchronized void save() {
+            Path path = path();
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    GSON.toJson(this, writer);
+                }
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                SavsCommonEconomy.LOGGER.warn("Failed to save " + path.getFileName(), e);
+            }
+        }
+    }
+}
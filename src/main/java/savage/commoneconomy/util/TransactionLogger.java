@@ -16,31 +16,101 @@ public class TransactionLogger {
 
     private static final File LOG_FILE = FabricLoader.getInstance().getGameDir().resolve("logs/economy.log").toFile();
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private static final java.util.concurrent.ExecutorService EXECUTOR = java.util.concurrent.Executors.newSingleThreadExecutor();
+    // A batch is written once it holds MAX_BATCH_SIZE entries or its oldest entry is FLUSH_INTERVAL_MS old
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long FLUSH_INTERVAL_MS = 1000;
+    private static final java.util.concurrent.BlockingQueue<LogEntry> QUEUE = new java.util.concurrent.LinkedBlockingQueue<>();
+    private static final Thread WRITER = new Thread(TransactionLogger::runWriter, "Savs-Economy-TransactionLog");
+    // Entries logged but not written yet, including a batch the writer is still collecting
+    private static final java.util.concurrent.atomic.AtomicLong PENDING = new java.util.concurrent.atomic.AtomicLong();
+
+    static {
+        WRITER.setDaemon(true);
+        WRITER.start();
+    }
 
     public static void log(String type, String source, String target, BigDecimal amount, String details) {
-        EXECUTOR.submit(() -> {
-            long timestamp = System.currentTimeMillis();
-            
-            // Try to log to database if available
-            savage.commoneconomy.storage.EconomyStorage storage = savage.commoneconomy.EconomyManager.getStorage();
-            if (storage instanceof savage.commoneconomy.storage.SqlStorage) {
-                storage.logTransaction(timestamp, source, target, amount, type, details);
+        PENDING.incrementAndGet();
+        QUEUE.add(new LogEntry(LocalDateTime.now(), type, source, target, amount, details));
+    }
+
+    private static void runWriter() {
+        java.util.List<LogEntry> batch = new java.util.ArrayList<>();
+        while (true) {
+            try {
+                LogEntry first = QUEUE.poll(FLUSH_INTERVAL_MS, java.util.concurrent.TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + FLUSH_INTERVAL_MS;
+                while (batch.size() < MAX_BATCH_SIZE) {
+                    long wait = deadline - System.currentTimeMillis();
+                    LogEntry next = wait > 0 ? QUEUE.poll(wait, java.util.concurrent.TimeUnit.MILLISECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    QUEUE.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+                }
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                SavsCommonEconomy.LOGGER.error("Failed to write economy log batch", e);
+            } finally {
+                PENDING.addAndGet(-batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    // Writes everything still queued and waits for a batch the writer is still on; called on shutdown before
+    // storage closes. The writer keeps running, so an integrated server started again in this JVM still logs.
+    public static void flush() {
+        java.util.List<LogEntry> batch = new java.util.ArrayList<>();
+        QUEUE.drainTo(batch);
+        if (!batch.isEmpty()) {
+            try {
+                writeBatch(batch);
+            } finally {
+                PENDING.addAndGet(-batch.size());
+            }
+        }
+        long deadline = System.currentTimeMillis() + java.util.concurrent.TimeUnit.SECONDS.toMillis(10);
+        while (PENDING.get() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 return;
             }
+        }
+    }
 
-            // Fallback to file logging
-            LogEntry entry = new LogEntry(LocalDateTime.now(), type, source, target, amount, details);
-            String logLine = formatLogEntry(entry);
+    // SQL and Redis storage keep the log themselves; otherwise it goes to logs/economy.log
+    private static boolean storesLogs(savage.commoneconomy.storage.EconomyStorage storage) {
+        return storage instanceof savage.commoneconomy.storage.SqlStorage || storage instanceof savage.commoneconomy.storage.RedisStorage;
+    }
 
-            try (FileWriter fw = new FileWriter(LOG_FILE, true);
-                 BufferedWriter bw = new BufferedWriter(fw);
-                 PrintWriter out = new PrintWriter(bw)) {
-                out.println(logLine);
-            } catch (IOException e) {
-                SavsCommonEconomy.LOGGER.error("Failed to write to economy log", e);
+    private static synchronized void writeBatch(java.util.List<LogEntry> batch) {
+        // Try to log to database if available
+        savage.commoneconomy.storage.EconomyStorage storage = savage.commoneconomy.EconomyManager.getStorage();
+        if (storesLogs(storage) && storage.logTransactions(batch)) {
+            return;
+        }
+
+        // Fallback to file logging
+        try (FileWriter fw = new FileWriter(LOG_FILE, true);
+             BufferedWriter bw = new BufferedWriter(fw);
+             PrintWriter out = new PrintWriter(bw)) {
+            for (LogEntry entry : batch) {
+                out.println(formatLogEntry(entry));
             }
-        });
+        } catch (IOException e) {
+            SavsCommonEconomy.LOGGER.error("Failed to write to economy log", e);
+        }
     }
 
     private static String formatLogEntry(LogEntry entry) {
@@ -51,7 +121,7 @@ public class TransactionLogger {
     public static java.util.List<LogEntry> searchLogs(String target, LocalDateTime cutoff) {
         // Try to search from database if available
         savage.commoneconomy.storage.EconomyStorage storage = savage.commoneconomy.EconomyManager.getStorage();
-        if (storage instanceof savage.commoneconomy.storage.SqlStorage) {
+        if (storesLogs(storage)) {
             long cutoffTimestamp = cutoff.atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
             return storage.searchLogs(target, cutoffTimestamp);
         }
@@ -63,42 +133,11 @@ public class TransactionLogger {
         java.util.List<LogEntry> results = new java.util.ArrayList<>();
         try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(LOG_FILE))) {
             String line;
+            long lineNumber = 0;
             while ((line = reader.readLine()) != null) {
-                // Line format: [yyyy-MM-dd HH:mm:ss] [TYPE] Source -> Target: $Amount (Details)
-                if (line.length() < 21) continue;
-
-                try {
-                    // Parse timestamp
-                    String timestampStr = line.substring(1, 20);
-                    LocalDateTime timestamp = LocalDateTime.parse(timestampStr, DATE_FORMAT);
-                    
-                    if (timestamp.isAfter(cutoff)) {
-                        if (target.equals("*") || line.toLowerCase().contains(target.toLowerCase())) {
-                            // Parse the rest of the line
-                            // Expected: [TYPE] Source -> Target: $Amount (Details)
-                            String rest = line.substring(22);
-                            int typeEnd = rest.indexOf(']');
-                            String type = rest.substring(1, typeEnd);
-                            
-                            String content = rest.substring(typeEnd + 2); // Skip "] "
-                            String[] parts = content.split(" -> ");
-                            String source = parts[0];
-                            
-                            String remaining = parts[1];
-                            int amountStart = remaining.indexOf(": $");
-                            String targetName = remaining.substring(0, amountStart);
-                            
-                            String amountAndDetails = remaining.substring(amountStart + 3);
-                            int detailsStart = amountAndDetails.indexOf(" (");
-                            String amountStr = amountAndDetails.substring(0, detailsStart);
-                            String details = amountAndDetails.substring(detailsStart + 2, amountAndDetails.length() - 1);
-                            
-                            results.add(new LogEntry(timestamp, type, source, targetName, new BigDecimal(amountStr), details));
-                        }
-                    }
-                } catch (Exception e) {
-                    // Ignore malformed lines, but maybe log debug if needed
-                    // SavsCommonEconomy.LOGGER.warn("Malformed log line: " + line);
+                LogEntry entry = parseLogLine(line, ++lineNumber, target, cutoff);
+                if (entry != null) {
+                    results.add(entry);
                 }
             }
         } catch (IOException e) {
@@ -110,7 +149,121 @@ public class TransactionLogger {
         return results;
     }
 
+    /**
+     * Fetches one page of entries next to a (timestamp, id) cursor. Use Long.MAX_VALUE for both to get the newest page.
+     */
+    public static LogPage searchLogPage(String target, LocalDateTime cutoff, long cursorTimestamp, long cursorId, boolean older, int limit) {
+        java.util.List<LogEntry> rows;
+        savage.commoneconomy.storage.EconomyStorage storage = savage.commoneconomy.EconomyManager.getStorage();
+        if (storesLogs(storage)) {
+            long cutoffTimestamp = cutoff.atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+            rows = storage.searchLogs(target, cutoffTimestamp, cursorTimestamp, cursorId, older, limit + 1);
+        } else {
+            rows = searchLogFile(target, cutoff, cursorId, older, limit + 1);
+        }
+
+        // Rows come back nearest-to-cursor first; one extra row means there is more in that direction
+        boolean more = rows.size() > limit;
+        if (more) {
+            rows = new java.util.ArrayList<>(rows.subList(0, limit));
+        }
+        if (older) {
+            return new LogPage(rows, more, cursorTimestamp != Long.MAX_VALUE);
+        }
+
+        if (!more) {
+            // Walked back to the newest entries, so show a full first page instead
+            return searchLogPage(target, cutoff, Long.MAX_VALUE, Long.MAX_VALUE, true, limit);
+        }
+        rows = new java.util.ArrayList<>(rows);
+        java.util.Collections.reverse(rows);
+        return new LogPage(rows, true, true);
+    }
+
+    // The file has no ids, so line numbers act as the cursor
+    private static java.util.List<LogEntry> searchLogFile(String target, LocalDateTime cutoff, long cursorId, boolean older, int limit) {
+        java.util.ArrayDeque<LogEntry> window = new java.util.ArrayDeque<>(limit);
+        if (!LOG_FILE.exists()) {
+            return new java.util.ArrayList<>();
+        }
+
+        try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(LOG_FILE))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (older ? lineNumber >= cursorId : lineNumber <= cursorId) {
+                    if (older) break;
+                    continue;
+                }
+                LogEntry entry = parseLogLine(line, lineNumber, target, cutoff);
+                if (entry == null) continue;
+
+                if (older) {
+                    // Keep only the newest matches before the cursor
+                    if (window.size() == limit) {
+                        window.removeFirst();
+                    }
+                    window.addLast(entry);
+                } else {
+                    window.addLast(entry);
+                    if (window.size() == limit) break;
+                }
+            }
+        } catch (IOException e) {
+            SavsCommonEconomy.LOGGER.error("Failed to read economy log", e);
+        }
+
+        java.util.List<LogEntry> results = new java.util.ArrayList<>(window);
+        if (older) {
+            java.util.Collections.reverse(results);
+        }
+        return results;
+    }
+
+    private static LogEntry parseLogLine(String line, long lineNumber, String target, LocalDateTime cutoff) {
+        // Line format: [yyyy-MM-dd HH:mm:ss] [TYPE] Source -> Target: $Amount (Details)
+        if (line.length() < 21) return null;
+
+        try {
+            // Parse timestamp
+            String timestampStr = line.substring(1, 20);
+            LocalDateTime timestamp = LocalDateTime.parse(timestampStr, DATE_FORMAT);
+
+            if (!timestamp.isAfter(cutoff)) return null;
+            if (!target.equals("*") && !line.toLowerCase().contains(target.toLowerCase())) return null;
+
+            // Parse the rest of the line
+            // Expected: [TYPE] Source -> Target: $Amount (Details)
+            String rest = line.substring(22);
+            int typeEnd = rest.indexOf(']');
+            String type = rest.substring(1, typeEnd);
+
+            String content = rest.substring(typeEnd + 2); // Skip "] "
+            String[] parts = content.split(" -> ");
+            String source = parts[0];
+
+            String remaining = parts[1];
+            int amountStart = remaining.indexOf(": $");
+            String targetName = remaining.substring(0, amountStart);
+
+            String amountAndDetails = remaining.substring(amountStart + 3);
+            int detailsStart = amountAndDetails.indexOf(" (");
+            String amountStr = amountAndDetails.substring(0, detailsStart);
+            String details = amountAndDetails.substring(detailsStart + 2, amountAndDetails.length() - 1);
+
+            long millis = timestamp.atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return new LogEntry(lineNumber, millis, type, source, targetName, new BigDecimal(amountStr), details);
+        } catch (Exception e) {
+            // Ignore malformed lines, but maybe log debug if needed
+            // SavsCommonEconomy.LOGGER.warn("Malformed log line: " + line);
+            return null;
+        }
+    }
+
     public static class LogEntry {
+        public final long id;
+        public final long timestampMillis;
         public final LocalDateTime timestamp;
         public final String type;
         public final String source;
@@ -119,6 +272,17 @@ public class TransactionLogger {
         public final String details;
 
         public LogEntry(LocalDateTime timestamp, String type, String source, String target, BigDecimal amount, String details) {
+            this(0, timestamp.atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli(), timestamp, type, source, target, amount, details);
+        }
+
+        public LogEntry(long id, long timestampMillis, String type, String source, String target, BigDecimal amount, String details) {
+            this(id, timestampMillis, LocalDateTime.ofInstant(java.time.Instant.ofEpochMilli(timestampMillis), java.time.ZoneId.systemDefault()),
+                    type, source, target, amount, details);
+        }
+
+        private LogEntry(long id, long timestampMillis, LocalDateTime timestamp, String type, String source, String target, BigDecimal amount, String details) {
+            this.id = id;
+            this.timestampMillis = timestampMillis;
             this.timestamp = timestamp;
             this.type = type;
             this.source = source;
@@ -127,4 +291,16 @@ public class TransactionLogger {
             this.details = details;
         }
     }
+
+    public static class LogPage {
+        public final java.util.List<LogEntry> entries; // Newest first
+        public final boolean hasOlder;
+        public final boolean hasNewer;
+
+        public LogPage(java.util.List<LogEntry> entries, boolean hasOlder, boolean hasNewer) {
+            this.entries = entries;
+            this.hasOlder = hasOlder;
+            this.hasNewer = hasNewer;
+        }
+    }
 }
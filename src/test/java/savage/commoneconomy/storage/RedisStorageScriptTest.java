@@ -0,0 +1,163 @@
+package savage.commoneconomy.storage;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import savage.commoneconomy.EconomyManager.AccountData;
+import savage.commoneconomy.EconomyManager.TransferResult;
+import savage.commoneconomy.config.EconomyConfig;
+import savage.commoneconomy.util.TransactionLogger.LogEntry;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the storage scripts against a Redis on localhost:6379, e.g. a plain redis-server. Skipped when none is running.
+ * Everything is written under a random key prefix that is removed afterwards.
+ */
+class RedisStorageScriptTest {
+    private static final long MAX_EXACT = 9007199254740991L;
+
+    private final String prefix = "savs-economy-test:" + UUID.randomUUID() + ":";
+    private RedisClient client;
+    private StatefulRedisConnection<String, String> connection;
+    private RedisCommands<String, String> redis;
+    private RedisStorage storage;
+
+    @BeforeEach
+    void connect() {
+        client = RedisClient.create("redis://localhost:6379");
+        try {
+            connection = client.connect();
+        } catch (Exception e) {
+            client.shutdown();
+            assumeTrue(false, "No Redis on localhost:6379");
+        }
+        redis = connection.sync();
+        storage = new RedisStorage(null, new EconomyConfig.RedisConfig(), prefix);
+        storage.load();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        if (connection == null) {
+            return;
+        }
+        List<String> keys = redis.keys(prefix + "*");
+        if (!keys.isEmpty()) {
+            redis.del(keys.toArray(new String[0]));
+        }
+        storage.save();
+        connection.close();
+        client.shutdown();
+    }
+
+    private UUID account(String name, long balance) {
+        UUID uuid = UUID.randomUUID();
+        redis.hset(prefix + "account:" + uuid, Map.of("name", name, "balance", String.valueOf(balance), "version", "0"));
+        redis.zadd(prefix + "balances", balance, uuid.toString());
+        return uuid;
+    }
+
+    @Test
+    void deltaUpdatesBalanceAndVersion() {
+        UUID uuid = account("Alice", 1000);
+
+        AccountData data = storage.applyDelta(uuid, 500);
+        assertEquals(1500, data.balance);
+        assertEquals(1, data.version);
+        assertEquals("Alice", data.name);
+        assertEquals(1500.0, redis.zscore(prefix + "balances", uuid.toString()));
+
+        assertNull(storage.applyDelta(uuid, -2000), "short of funds");
+        assertEquals(1500, storage.getBalance(uuid));
+        assertNull(storage.applyDelta(UUID.randomUUID(), 100), "missing account");
+    }
+
+    @Test
+    void transferMovesBothSidesOrNothing() {
+        UUID alice = account("Alice", 1000);
+        UUID bob = account("Bob", 0);
+
+        TransferResult result = storage.transfer(alice, bob, 300);
+        assertEquals(700, result.from.balance);
+        assertEquals(1, result.from.version);
+        assertEquals(300, result.to.balance);
+        assertEquals(1, result.to.version);
+
+        assertNull(storage.transfer(alice, bob, 5000), "short of funds");
+        assertNull(storage.transfer(alice, UUID.randomUUID(), 100), "missing target");
+        assertEquals(700, storage.getBalance(alice));
+        assertEquals(300, storage.getBalance(bob));
+    }
+
+    @Test
+    void overflowIsRefusedWithoutChangingAnything() {
+        UUID rich = account("Rich", MAX_EXACT - 5);
+        UUID payer = account("Payer", 100);
+
+        assertThrows(ArithmeticException.class, () -> storage.applyDelta(rich, 10));
+        assertThrows(ArithmeticException.class, () -> storage.transfer(payer, rich, 10));
+        assertEquals(MAX_EXACT - 5, storage.getBalance(rich));
+        assertEquals(100, storage.getBalance(payer));
+        assertEquals(0, storage.getAccount(payer).version);
+    }
+
+    @Test
+    void logPagesFollowCursorsWithoutGapsOrRepeats() {
+        // Entries are logged after they happen, so their timestamps lie before their stream ids
+        long now = System.currentTimeMillis() - 1000;
+        List<LogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            entries.add(new LogEntry(0, now + i, "PAY", "Alice", "Bob", BigDecimal.valueOf(i + 1), "Payment " + i));
+        }
+        entries.add(new LogEntry(0, now + 5, "PAY", "Carol", "Dave", BigDecimal.ONE, "Unrelated"));
+        assertTrue(storage.logTransactions(entries));
+        storage.logTransaction(now + 6, "Alice", "Alice", BigDecimal.TEN, "PAY", "To self");
+
+        List<LogEntry> all = storage.searchLogs("*", now - 1);
+        assertEquals(7, all.size());
+        assertEquals(5, storage.searchLogs("bob", now - 1).size());
+        assertEquals(1, storage.searchLogs("Carol", now - 1).size());
+
+        // Newest first, two at a time
+        List<LogEntry> paged = new ArrayList<>();
+        long cursor = Long.MAX_VALUE;
+        for (int page = 0; page < 10; page++) {
+            List<LogEntry> rows = storage.searchLogs("Alice", now - 1, Long.MAX_VALUE, cursor, true, 2);
+            if (rows.isEmpty()) {
+                break;
+            }
+            paged.addAll(rows);
+            cursor = rows.get(rows.size() - 1).id;
+        }
+        assertEquals(6, paged.size(), "five payments and one to self, which is stored once");
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < paged.size(); i++) {
+            assertTrue(ids.add(paged.get(i).id), "repeated entry");
+            if (i > 0) {
+                assertTrue(paged.get(i).id < paged.get(i - 1).id, "out of order");
+            }
+        }
+        assertEquals("To self", paged.get(0).details);
+        assertEquals("Payment 0", paged.get(5).details);
+
+        // Paging back towards newer entries from the oldest one
+        List<LogEntry> newer = storage.searchLogs("Alice", now - 1, Long.MAX_VALUE, paged.get(5).id, false, 2);
+        assertEquals(List.of("Payment 1", "Payment 2"), newer.stream().map(entry -> entry.details).toList());
+
+        // The cutoff leaves out older entries
+        assertEquals(2, storage.searchLogs("Alice", now + 3, Long.MAX_VALUE, Long.MAX_VALUE, true, 10).size());
+    }
+}